@@ -0,0 +1,89 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jhoughton.math.rsi.AverageCalculator;
+import jhoughton.math.rsi.AverageCalculator.Averager;
+
+/**
+ * Raw cost of one {@link AverageCalculator#average(double, double)} step,
+ * {@code WilderAverage} against {@code CutlerAverage}.
+ *
+ * @author jay
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AverageCalculatorBenchmark {
+
+    static final int CHANGES = 1 << 12;
+
+    @Param({ "2", "14", "50", "200" })
+    int length;
+
+    @Param({ "Wilder", "Cutler" })
+    Averager averager;
+
+    AverageCalculator calculator;
+    double[] changes;
+    double last;
+    int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        calculator = RsiCalculatorBenchmark.averager(averager, length);
+        TickGenerator.Ticks ticks = new TickGenerator().generate(CHANGES + 1, CHANGES + 1, 1, 1);
+        changes = new double[CHANGES];
+        for (int i = 0; i < CHANGES; i++) {
+            changes[i] = Math.abs(ticks.prices[i + 1] - ticks.prices[i]);
+        }
+    }
+
+    @Benchmark
+    public double average() {
+        last = calculator.average(changes[index], last);
+        index = (index + 1) & (CHANGES - 1);
+        return last;
+    }
+
+}
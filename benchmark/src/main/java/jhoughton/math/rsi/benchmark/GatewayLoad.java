@@ -0,0 +1,168 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.benchmark;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import jhoughton.math.rsi.RsiCalculator;
+import jhoughton.math.rsi.engine.ShardedRsiEngine;
+import jhoughton.math.rsi.gateway.TickGateway;
+import jhoughton.math.rsi.gateway.TickGateway.Transport;
+import jhoughton.math.rsi.metrics.LatencyHistogram;
+
+/**
+ * Loopback load test of {@link TickGateway}: sustained ticks per second and
+ * tick-to-RSI latency, from writing a tick frame to reading the interval it
+ * closes back from the subscriber socket. Not a JMH benchmark, run it with
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar jhoughton.math.rsi.benchmark.GatewayLoad [Tcp|Udp] [seconds] [ticks/s, 0 = flat out] [symbols] [shards]
+ * </pre>
+ *
+ * Symbols take turns and every symbol's calculator has a period of 1, tick
+ * {@code k} is the {@code k / symbols}-th tick of symbol {@code k % symbols}
+ * and closes that symbol's previous interval. So the interval of symbol
+ * {@code s} ending at {@code end} was closed by tick
+ * {@code (end + 1) * symbols + s}.
+ *
+ * @author jay
+ *
+ */
+public final class GatewayLoad {
+
+    private static final int BATCH = 32;
+    private static final int SENT = 1 << 22;
+
+    private GatewayLoad() {}
+
+    public static void main(String[] args) throws Exception {
+        final Transport transport = args.length > 0 ? Transport.valueOf(args[0]) : Transport.Tcp;
+        final int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        final long rate = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        final int symbols = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+        final int shards = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+
+        final InetSocketAddress loopback = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        final TickGateway gateway = new TickGateway(transport, loopback, loopback);
+        final ShardedRsiEngine engine = new ShardedRsiEngine(shards, 1 << 16, id -> new RsiCalculator(1, 14),
+                gateway);
+        engine.start();
+        gateway.start(engine);
+
+        // send time of every tick, by sequence
+        final AtomicLongArray sent = new AtomicLongArray(SENT);
+        final LatencyHistogram latency = new LatencyHistogram();
+        final long[] received = new long[1];
+
+        final SocketChannel subscriber = SocketChannel.open(gateway.getSubscriberAddress());
+        while (gateway.subscriberCount() == 0) {
+            Thread.sleep(1);
+        }
+        final Thread reader = new Thread(() -> {
+            final ByteBuffer in = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            try {
+                while (subscriber.read(in) >= 0) {
+                    final long now = System.nanoTime();
+                    in.flip();
+                    while (in.remaining() >= TickGateway.INTERVAL_FRAME) {
+                        final long symbol = in.getLong(in.position());
+                        final long end = in.getLong(in.position() + 8);
+                        final long closing = ((end + 1) * symbols) + symbol;
+                        latency.record(now - sent.get((int) (closing & (SENT - 1))));
+                        in.position(in.position() + TickGateway.INTERVAL_FRAME);
+                        received[0]++;
+                    }
+                    in.compact();
+                }
+            } catch (Exception e) {
+                // closed
+            }
+        }, "subscriber");
+        reader.setDaemon(true);
+        reader.start();
+
+        final ByteChannel ticks;
+        if (transport == Transport.Tcp) {
+            ticks = SocketChannel.open(gateway.getTickAddress());
+        } else {
+            ticks = DatagramChannel.open().connect(gateway.getTickAddress());
+        }
+        final ByteBuffer out = ByteBuffer.allocateDirect(BATCH * TickGateway.FRAME).order(ByteOrder.LITTLE_ENDIAN);
+        final long nanosPerBatch = rate > 0 ? (TimeUnit.SECONDS.toNanos(1) * BATCH) / rate : 0;
+
+        final long start = System.nanoTime();
+        final long stop = start + TimeUnit.SECONDS.toNanos(seconds);
+        long next = start;
+        long seq = 0;
+        while (System.nanoTime() < stop) {
+            if (nanosPerBatch > 0) {
+                while (System.nanoTime() < next) {
+                    Thread.onSpinWait();
+                }
+                next += nanosPerBatch;
+            }
+            out.clear();
+            final long now = System.nanoTime();
+            for (int k = 0; k < BATCH; k++, seq++) {
+                sent.set((int) (seq & (SENT - 1)), now);
+                out.putLong(seq / symbols).putDouble(100 + (seq % 17)).putLong(seq % symbols);
+            }
+            out.flip();
+            while (out.hasRemaining()) {
+                ticks.write(out);
+            }
+            if ((transport == Transport.Udp) && (nanosPerBatch == 0)) {
+                // flat out over UDP only measures the drop rate, pace on the receiver
+                while (gateway.getFrames() < (seq - (BATCH * 64))) {
+                    LockSupport.parkNanos(1000);
+                }
+            }
+        }
+        final double elapsed = (System.nanoTime() - start) / 1e9;
+
+        // let the pipeline drain
+        Thread.sleep(500);
+        ticks.close();
+
+        System.out.printf("%s, %d symbols, %d shards, target %s ticks/s%n", transport, symbols, shards,
+                rate > 0 ? Long.toString(rate) : "max");
+        System.out.printf("sent %,d ticks in %.1fs: %,.0f ticks/s, decoded %,d, intervals received %,d%n", seq,
+                elapsed, seq / elapsed, gateway.getFrames(), received[0]);
+        System.out.printf("tick-to-RSI latency p50 <= %,d ns, p99 <= %,d ns, p99.9 <= %,d ns, mean %,.0f ns%n",
+                latency.percentile(0.5), latency.percentile(0.99), latency.percentile(0.999), latency.mean());
+
+        gateway.close();
+        engine.close();
+        subscriber.close();
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.RsiCalculator;
+import jhoughton.math.rsi.engine.ShardedRsiEngine;
+import jhoughton.math.rsi.engine.SymbolTable;
+
+/**
+ * Multi-symbol tick routing: the {@code HashMap<String, RsiCalculator>}
+ * baseline against the primitive {@link SymbolTable} and the sharded engine.
+ *
+ * @author jay
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MultiSymbolBenchmark {
+
+    static final int TICKS = 1 << 18;
+    static final long PERIOD = 60_000;
+    static final int LENGTH = 14;
+
+    @Param({ "100", "10000", "40000" })
+    int symbols;
+
+    @Param({ "4" })
+    int shards;
+
+    TickGenerator.Ticks ticks;
+    String[] names;
+
+    Map<String, RsiCalculator> map;
+    SymbolTable<RsiCalculator> table;
+    ShardedRsiEngine engine;
+
+    int index;
+    long offset;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ticks = new TickGenerator().generate(TICKS, PERIOD, 100, symbols);
+        names = new String[symbols];
+        for (int s = 0; s < symbols; s++) {
+            names[s] = "SYM" + s;
+        }
+        map = new HashMap<>();
+        table = new SymbolTable<>();
+        engine = new ShardedRsiEngine(shards, 1 << 14, id -> new RsiCalculator(PERIOD, LENGTH), (id, end, i) -> {
+        });
+        engine.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    private int next() {
+        int i = index;
+        if (++index == TICKS) {
+            index = 0;
+            offset += ticks.span;
+        }
+        return i;
+    }
+
+    @Benchmark
+    public Interval hashMap() {
+        int i = next();
+        return map.computeIfAbsent(names[(int) ticks.symbols[i]], k -> new RsiCalculator(PERIOD, LENGTH))
+                .trade(ticks.prices[i], ticks.timestamps[i] + offset);
+    }
+
+    @Benchmark
+    public Interval symbolTable() {
+        int i = next();
+        return table.computeIfAbsent(ticks.symbols[i], k -> new RsiCalculator(PERIOD, LENGTH))
+                .trade(ticks.prices[i], ticks.timestamps[i] + offset);
+    }
+
+    @Benchmark
+    public void shardedEngine() {
+        int i = next();
+        engine.trade(ticks.symbols[i], ticks.prices[i], ticks.timestamps[i] + offset);
+    }
+
+}
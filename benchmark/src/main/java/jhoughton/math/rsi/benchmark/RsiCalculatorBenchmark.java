@@ -0,0 +1,126 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jhoughton.math.rsi.AverageCalculator;
+import jhoughton.math.rsi.AverageCalculator.Averager;
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.PrimitiveRsiCalculator;
+import jhoughton.math.rsi.RsiCalculator;
+import jhoughton.math.rsi.RsiSeries;
+
+/**
+ * Per tick throughput of the single symbol calculators across interval
+ * densities, RSI lengths and averagers. Run with {@code -prof gc} to get the
+ * allocation rate per tick.
+ *
+ * @author jay
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RsiCalculatorBenchmark {
+
+    static final int TICKS = 1 << 16;
+    static final long PERIOD = 10_000;
+
+    @Param({ "1", "10", "100", "1000", "10000" })
+    int ticksPerInterval;
+
+    @Param({ "2", "14", "50", "200" })
+    int length;
+
+    @Param({ "Wilder", "Cutler" })
+    Averager averager;
+
+    TickGenerator.Ticks ticks;
+    RsiCalculator calculator;
+    RsiCalculator specialized;
+    PrimitiveRsiCalculator primitive;
+
+    int index;
+    long offset;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ticks = new TickGenerator().generate(TICKS, PERIOD, ticksPerInterval, 1);
+        calculator = new RsiCalculator(PERIOD, length, averager(averager, length), averager(averager, length));
+        specialized = averager.newCalculator(PERIOD, length);
+        primitive = new PrimitiveRsiCalculator(PERIOD,
+                new RsiSeries(length, averager(averager, length), averager(averager, length)), null);
+        index = 0;
+        offset = 0;
+    }
+
+    static AverageCalculator averager(Averager averager, int length) {
+        return averager.newAverager(length);
+    }
+
+    private int next() {
+        int i = index;
+        if (++index == TICKS) {
+            index = 0;
+            offset += ticks.span;
+        }
+        return i;
+    }
+
+    @Benchmark
+    public Interval trade() {
+        int i = next();
+        return calculator.trade(ticks.prices[i], ticks.timestamps[i] + offset);
+    }
+
+    @Benchmark
+    public Interval tradeSpecialized() {
+        int i = next();
+        return specialized.trade(ticks.prices[i], ticks.timestamps[i] + offset);
+    }
+
+    @Benchmark
+    public Interval tradePrimitive() {
+        int i = next();
+        return primitive.trade(ticks.prices[i], ticks.timestamps[i] + offset);
+    }
+
+}
@@ -0,0 +1,101 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.benchmark;
+
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible synthetic tick source. The same seed always yields the same
+ * ticks, so runs are comparable across releases and machines.
+ * <p>
+ * Prices follow a cent-rounded random walk around 100, timestamps are spaced
+ * evenly so each interval of {@code period} receives {@code ticksPerInterval}
+ * ticks.
+ *
+ * @author jay
+ *
+ */
+public final class TickGenerator {
+
+    public static final long DEFAULT_SEED = 20220101L;
+
+    private final SplittableRandom random;
+
+    public TickGenerator() {
+        this(DEFAULT_SEED);
+    }
+
+    public TickGenerator(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * @param count            number of ticks
+     * @param period           interval period in timestamp units
+     * @param ticksPerInterval ticks landing in each interval
+     * @param symbols          distinct symbol ids, drawn uniformly
+     * @return generated ticks
+     */
+    public Ticks generate(int count, long period, int ticksPerInterval, int symbols) {
+        if (ticksPerInterval < 1 || period < ticksPerInterval) {
+            throw new IllegalArgumentException("need 1 <= ticksPerInterval <= period");
+        }
+        final long step = period / ticksPerInterval;
+        long[] timestamps = new long[count];
+        double[] prices = new double[count];
+        long[] ids = new long[count];
+
+        double price = 100;
+        for (int i = 0; i < count; i++) {
+            price = Math.max(1, price + ((random.nextInt(41) - 20) / 100d));
+            price = Math.round(price * 100) / 100d;
+            timestamps[i] = i * step;
+            prices[i] = price;
+            ids[i] = symbols > 1 ? random.nextInt(symbols) : 0;
+        }
+        return new Ticks(timestamps, prices, ids, count * step);
+    }
+
+    /**
+     * generated ticks, as parallel columns
+     */
+    public static final class Ticks {
+        public final long[] timestamps;
+        public final double[] prices;
+        public final long[] symbols;
+        /** timestamp offset to add each time the ticks are replayed again */
+        public final long span;
+
+        Ticks(long[] timestamps, double[] prices, long[] symbols, long span) {
+            this.timestamps = timestamps;
+            this.prices = prices;
+            this.symbols = symbols;
+            this.span = span;
+        }
+
+        public int size() {
+            return prices.length;
+        }
+    }
+}
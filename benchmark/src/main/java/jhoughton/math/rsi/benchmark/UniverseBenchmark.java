@@ -0,0 +1,94 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jhoughton.math.rsi.AverageCalculator.Averager;
+import jhoughton.math.rsi.universe.UniverseRsiCalculator;
+
+/**
+ * Time to close one bar across a whole universe of symbols.
+ *
+ * @author jay
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UniverseBenchmark {
+
+    static final int BARS = 64;
+
+    @Param({ "1000", "40000" })
+    int symbols;
+
+    @Param({ "14" })
+    int length;
+
+    @Param({ "Wilder", "Cutler" })
+    Averager averager;
+
+    UniverseRsiCalculator universe;
+    double[][] closes;
+    int bar;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        universe = new UniverseRsiCalculator(symbols, length, averager);
+        TickGenerator.Ticks ticks = new TickGenerator().generate(BARS * symbols, BARS * symbols, BARS * symbols, 1);
+        closes = new double[BARS][symbols];
+        for (int b = 0; b < BARS; b++) {
+            System.arraycopy(ticks.prices, b * symbols, closes[b], 0, symbols);
+        }
+        // get past warm-up so every measured bar runs the steady state loop
+        for (int b = 0; b <= length + 1; b++) {
+            universe.close(closes[b % BARS]);
+        }
+    }
+
+    @Benchmark
+    public boolean closeBar() {
+        boolean ready = universe.close(closes[bar]);
+        bar = (bar + 1) & (BARS - 1);
+        return ready;
+    }
+
+}
@@ -23,6 +23,9 @@
  */
 package jhoughton.math.rsi;
 
+import jhoughton.math.rsi.average.CutlerAverage;
+import jhoughton.math.rsi.average.WilderAverage;
+
 /**
  * @author jay
  *
@@ -31,7 +34,77 @@ public interface AverageCalculator {
 
     double average(double change, double lastChange);
 
+    /**
+     * The value {@link #average(double, double)} would return, without changing
+     * any state. Stateful implementations must override this.
+     *
+     * @param change
+     * @param lastChange
+     * @return provisional average
+     */
+    default double preview(double change, double lastChange) {
+        return average(change, lastChange);
+    }
+
+    /**
+     * Average after {@code intervals} flat (zero change) intervals, used to
+     * fast-forward over gaps. Implementations should override this with
+     * something cheaper than stepping through every interval.
+     *
+     * @param lastChange average before the gap
+     * @param intervals  number of flat intervals
+     * @return average after the gap
+     */
+    default double decay(double lastChange, long intervals) {
+        double average = lastChange;
+        for (long j = 0; j < intervals; j++) {
+            average = average(0, average);
+        }
+        return average;
+    }
+
     public static enum Averager {
-        Wilder, Cutler;
+        Wilder {
+            @Override
+            public AverageCalculator newAverager(int length) {
+                return new WilderAverage(length);
+            }
+
+            @Override
+            public RsiCalculator newCalculator(long period, int length) {
+                return new WilderRsiCalculator(period, length);
+            }
+        },
+        Cutler {
+            @Override
+            public AverageCalculator newAverager(int length) {
+                return new CutlerAverage(length);
+            }
+
+            @Override
+            public RsiCalculator newCalculator(long period, int length) {
+                return new CutlerRsiCalculator(period, length);
+            }
+        };
+
+        /**
+         * @param length
+         * @return a new averager, stateful ones must not be shared between the
+         *         up and down side
+         */
+        public abstract AverageCalculator newAverager(int length);
+
+        /**
+         * Calculator specialized for this averager, a final class whose
+         * averaging hooks call the concrete averager rather than the
+         * interface, so the JIT can inline them. Same results as an
+         * {@link RsiCalculator} with separate up and down averagers. Use the
+         * {@link RsiCalculator} constructors for custom averagers.
+         *
+         * @param period
+         * @param length
+         * @return a new calculator
+         */
+        public abstract RsiCalculator newCalculator(long period, int length);
     }
 }
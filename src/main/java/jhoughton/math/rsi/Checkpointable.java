@@ -0,0 +1,87 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+import java.nio.ByteBuffer;
+
+/**
+ * State that can be written to and restored from a binary checkpoint, so a
+ * restart can resume without replaying ticks. Only state is written,
+ * configuration such as period and length is checked on restore but must be
+ * supplied by constructing the target the same way.
+ *
+ * @author jay
+ *
+ */
+public interface Checkpointable {
+
+    /**
+     * @return bytes {@link #checkpoint(ByteBuffer)} will write
+     */
+    int checkpointSize();
+
+    void checkpoint(ByteBuffer out);
+
+    /**
+     * @param in positioned at data written by {@link #checkpoint(ByteBuffer)}
+     * @throws IllegalArgumentException when the data was written with a
+     *                                  different configuration
+     */
+    void restore(ByteBuffer in);
+
+    /**
+     * @return bytes needed for an averager, stateless ones only take a marker
+     */
+    static int checkpointSize(AverageCalculator averager) {
+        return 4 + ((averager instanceof Checkpointable) ? ((Checkpointable) averager).checkpointSize() : 0);
+    }
+
+    static void checkpoint(AverageCalculator averager, ByteBuffer out) {
+        if (averager instanceof Checkpointable) {
+            Checkpointable state = (Checkpointable) averager;
+            out.putInt(state.checkpointSize());
+            state.checkpoint(out);
+        } else {
+            out.putInt(-1);
+        }
+    }
+
+    static void restore(AverageCalculator averager, ByteBuffer in) {
+        int size = in.getInt();
+        if (size < 0) {
+            return;
+        }
+        if (!(averager instanceof Checkpointable)) {
+            throw new IllegalArgumentException(averager.getClass().getName() + " cannot restore averager state");
+        }
+        ((Checkpointable) averager).restore(in);
+    }
+
+    static void check(String what, long expected, long actual) {
+        if (expected != actual) {
+            throw new IllegalArgumentException(
+                    "checkpoint " + what + " " + actual + " does not match configured " + expected);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+import java.nio.ByteBuffer;
+
+import jhoughton.math.rsi.average.CutlerAverage;
+
+/**
+ * {@link RsiCalculator} specialized for Cutler's SMA, with separate windows for
+ * the up and down side. The class is final, owns the windows as final fields
+ * of the concrete {@link CutlerAverage} type and overrides only the averaging
+ * hooks, so nothing on the per-interval path goes through the
+ * {@link AverageCalculator} interface.
+ * <p>
+ * Create it with {@link AverageCalculator.Averager#newCalculator(long, int)}.
+ * Results and checkpoints are the same as an {@link RsiCalculator} with two
+ * {@link CutlerAverage}s.
+ *
+ * @author jay
+ *
+ */
+public final class CutlerRsiCalculator extends RsiCalculator {
+
+    private final CutlerAverage up;
+    private final CutlerAverage down;
+
+    public CutlerRsiCalculator(long period, int length) {
+        // the windows live here only, every hook that would use the
+        // superclass's averagers is overridden
+        super(period, length, null, null);
+        this.up = new CutlerAverage(length);
+        this.down = new CutlerAverage(length);
+    }
+
+    @Override
+    double smoothUp(double change, double previous) {
+        return up.average(change, previous);
+    }
+
+    @Override
+    double smoothDown(double change, double previous) {
+        return down.average(change, previous);
+    }
+
+    @Override
+    double decayUp(double average, long periods) {
+        return up.decay(average, periods);
+    }
+
+    @Override
+    double decayDown(double average, long periods) {
+        return down.decay(average, periods);
+    }
+
+    @Override
+    double previewUp(double change, double previous) {
+        return up.preview(change, previous);
+    }
+
+    @Override
+    double previewDown(double change, double previous) {
+        return down.preview(change, previous);
+    }
+
+    @Override
+    int averagersCheckpointSize() {
+        return Checkpointable.checkpointSize(up) + Checkpointable.checkpointSize(down);
+    }
+
+    @Override
+    void checkpointAveragers(ByteBuffer out) {
+        Checkpointable.checkpoint(up, out);
+        Checkpointable.checkpoint(down, out);
+    }
+
+    @Override
+    void restoreAveragers(ByteBuffer in) {
+        Checkpointable.restore(up, in);
+        Checkpointable.restore(down, in);
+    }
+}
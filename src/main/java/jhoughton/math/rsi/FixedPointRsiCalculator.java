@@ -0,0 +1,252 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Wilder RSI over integer prices. Prices are {@code long} tick counts, changes
+ * are {@code int} ticks and the SMMA accumulators are {@code long} fixed-point
+ * with {@link #FRACTION_BITS} fractional bits, rounded half up, so replays
+ * produce bit-identical results on any platform. Values are converted to
+ * {@code double}, multiplied by the tick {@code scale}, only when an interval
+ * is reported.
+ * <p>
+ * Integer sums are exact in any order, so the SMA kickstart is a running sum
+ * and no window of past changes is kept at all: the whole state is a handful
+ * of longs. Results agree with {@link RsiCalculator} on {@code ticks * scale}
+ * prices up to the fixed-point rounding.
+ * <p>
+ * The length is capped at {@link #MAX_LENGTH} and a single interval's change
+ * must fit an {@code int}, together they keep the accumulator arithmetic
+ * inside a {@code long}.
+ *
+ * @author jay
+ *
+ */
+public class FixedPointRsiCalculator implements Checkpointable {
+
+    public static final int FRACTION_BITS = 16;
+    public static final int MAX_LENGTH = 1 << 16;
+
+    private static final double ONE = 1L << FRACTION_BITS;
+
+    private final long period;
+    private final int length;
+    private final double scale;
+    private final IntervalListener listener;
+
+    // --- current interval
+    private long open;
+    private long begin = -1;
+    private long expectedEnd;
+
+    private long lastPrice;
+
+    private int n = 0; // intervalCounter
+
+    // --- fixed-point SMMA, ticks << FRACTION_BITS
+    private long averageUp;
+    private long averageDown;
+
+    // --- exact SMA sums in ticks, only kept during warm-up
+    private long warmUpUp;
+    private long warmUpDown;
+
+    private final Interval flyweight = new Interval();
+
+    public FixedPointRsiCalculator(long period, int length, double scale) {
+        this(period, length, scale, null);
+    }
+
+    /**
+     * @param period
+     * @param length   1 to {@link #MAX_LENGTH}
+     * @param scale    price of one tick, e.g. 0.01
+     * @param listener notified on every close, may be null
+     */
+    public FixedPointRsiCalculator(long period, int length, double scale, IntervalListener listener) {
+        if ((length < 1) || (length > MAX_LENGTH)) {
+            throw new IllegalArgumentException("length must be within [1," + MAX_LENGTH + "]: " + length);
+        }
+        if (!(scale > 0)) {
+            throw new IllegalArgumentException("scale must be positive: " + scale);
+        }
+        this.period = period;
+        this.length = length;
+        this.scale = scale;
+        this.listener = listener;
+    }
+
+    /**
+     * @param price     in ticks
+     * @param timestamp
+     * @return the closed interval or null, the instance is reused on every close
+     *         so copy anything that must outlive the next trade
+     * @throws ArithmeticException if an interval's change doesn't fit an int
+     */
+    public Interval trade(long price, long timestamp) {
+
+        Interval i = null;
+
+        if (begin == -1) {
+            open = price;
+            begin = timestamp;
+            expectedEnd = (timestamp + period) - 1;
+        } else if (timestamp >= expectedEnd) {
+            i = close(open, lastPrice);
+            if (listener != null) {
+                listener.onInterval(expectedEnd, i.rsi, i.averageUp, i.averageDown);
+            }
+
+            open = price;
+            begin = expectedEnd + 1;
+            expectedEnd = (expectedEnd + period);
+        }
+
+        lastPrice = price;
+        return i;
+    }
+
+    private Interval close(long open, long close) {
+        final int delta = Math.toIntExact(close - open);
+        final int changeUp = delta > 0 ? delta : 0;
+        final int changeDown = delta > 0 ? 0 : Math.negateExact(delta);
+        n++;
+
+        final Interval i = flyweight;
+        i.open = open * scale;
+        i.close = close * scale;
+        i.changeUp = changeUp * scale;
+        i.changeDown = changeDown * scale;
+
+        if (n > length) {
+            if (n == (length + 1)) {
+                // kickstart with the SMA of the warm-up intervals
+                averageUp = divide(warmUpUp);
+                averageDown = divide(warmUpDown);
+                warmUpUp = 0;
+                warmUpDown = 0;
+            }
+            averageUp = smooth(changeUp, averageUp);
+            averageDown = smooth(changeDown, averageDown);
+
+            i.averageUp = (averageUp / ONE) * scale;
+            i.averageDown = (averageDown / ONE) * scale;
+            i.rs = (double) averageUp / averageDown;
+            i.rsi = 100 - (100 / (1 + i.rs));
+        } else {
+            warmUpUp += changeUp;
+            warmUpDown += changeDown;
+            i.averageUp = 0;
+            i.averageDown = 0;
+            i.rs = 0;
+            i.rsi = 0;
+        }
+        return i;
+    }
+
+    /**
+     * ((length - 1) * last + change) / length, rounded half up
+     */
+    private long smooth(int change, long last) {
+        return ((last * (length - 1)) + ((long) change << FRACTION_BITS) + (length >> 1)) / length;
+    }
+
+    /**
+     * (sum << FRACTION_BITS) / length rounded half up, without overflowing for
+     * sums of up to MAX_LENGTH int changes
+     */
+    private long divide(long sum) {
+        final long whole = sum / length;
+        final long rest = sum % length;
+        return (whole << FRACTION_BITS) + (((rest << FRACTION_BITS) + (length >> 1)) / length);
+    }
+
+    /**
+     * @return number of intervals closed so far
+     */
+    public int count() {
+        return n;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * @return up SMMA in ticks with {@link #FRACTION_BITS} fractional bits, zero
+     *         during warm-up
+     */
+    public long getRawAverageUp() {
+        return n > length ? averageUp : 0;
+    }
+
+    /**
+     * @return down SMMA in ticks with {@link #FRACTION_BITS} fractional bits,
+     *         zero during warm-up
+     */
+    public long getRawAverageDown() {
+        return n > length ? averageDown : 0;
+    }
+
+    public long getBegin() {
+        return begin;
+    }
+
+    public long getExpectedEnd() {
+        return expectedEnd;
+    }
+
+    @Override
+    public int checkpointSize() {
+        return 8 + 4 + 8 + 8 + 8 + 8 + 4 + 8 + 8 + 8 + 8;
+    }
+
+    @Override
+    public void checkpoint(ByteBuffer out) {
+        out.putLong(period).putInt(length).putLong(open).putLong(begin).putLong(expectedEnd).putLong(lastPrice);
+        out.putInt(n).putLong(averageUp).putLong(averageDown).putLong(warmUpUp).putLong(warmUpDown);
+    }
+
+    @Override
+    public void restore(ByteBuffer in) {
+        Checkpointable.check("period", period, in.getLong());
+        Checkpointable.check("length", length, in.getInt());
+        open = in.getLong();
+        begin = in.getLong();
+        expectedEnd = in.getLong();
+        lastPrice = in.getLong();
+        n = in.getInt();
+        averageUp = in.getLong();
+        averageDown = in.getLong();
+        warmUpUp = in.getLong();
+        warmUpDown = in.getLong();
+    }
+
+}
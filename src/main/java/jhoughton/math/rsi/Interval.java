@@ -23,6 +23,8 @@
  */
 package jhoughton.math.rsi;
 
+import java.nio.ByteBuffer;
+
 /**
  * time series element to track a day, hour, minute etc.
  *
@@ -70,6 +72,24 @@ public class Interval {
         return i;
     }
 
+    static final int CHECKPOINT_SIZE = 64;
+
+    void checkpoint(ByteBuffer out) {
+        out.putDouble(open).putDouble(close).putDouble(changeUp).putDouble(changeDown);
+        out.putDouble(averageUp).putDouble(averageDown).putDouble(rs).putDouble(rsi);
+    }
+
+    void restore(ByteBuffer in) {
+        open = in.getDouble();
+        close = in.getDouble();
+        changeUp = in.getDouble();
+        changeDown = in.getDouble();
+        averageUp = in.getDouble();
+        averageDown = in.getDouble();
+        rs = in.getDouble();
+        rsi = in.getDouble();
+    }
+
     // normally I'd use lombok here, but it would be the only dependency, so just
     // keep it simple with concrete accessors & mutators
 
@@ -77,6 +97,14 @@ public class Interval {
         return (averageUp > 0) || (averageDown > 0);
     }
 
+    public double getOpen() {
+        return open;
+    }
+
+    public double getClose() {
+        return close;
+    }
+
     public double getChangeUp() {
         return changeUp;
     }
@@ -0,0 +1,202 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+/**
+ * Wilder RSI for several lengths of the same series in one pass, e.g. RSI(2),
+ * RSI(14) and RSI(50). Interval bucketing and the up/down change are computed
+ * once per close, the kickstart windows of every length share one primitive
+ * ring sized for the longest length, and the per-length SMMA state lives in
+ * parallel arrays updated by a single loop.
+ * <p>
+ * Per length the results match an {@link RsiCalculator} with a
+ * {@link jhoughton.math.rsi.average.WilderAverage}.
+ *
+ * @author jay
+ *
+ */
+public class MultiLengthRsiCalculator {
+
+    private final long period;
+    private final int[] lengths;
+    private final double[] lengthsMinusOne; // pre-compute
+    private final double[] divisors;
+
+    // --- shared kickstart window, last `maxLength` changes before the current
+    private final double[] windowUp;
+    private final double[] windowDown;
+    private int position;
+
+    private int n = 0; // intervalCounter
+
+    // --- per length state
+    private final double[] averageUp;
+    private final double[] averageDown;
+    private final double[] rs;
+    private final double[] rsi;
+
+    // --- current interval
+    private double open;
+    private long begin = -1;
+    private long expectedEnd;
+
+    private double lastPrice;
+
+    public MultiLengthRsiCalculator(long period, int... lengths) {
+        if (lengths.length == 0) {
+            throw new IllegalArgumentException("need at least one length");
+        }
+        int maxLength = 0;
+        lengthsMinusOne = new double[lengths.length];
+        divisors = new double[lengths.length];
+        for (int j = 0; j < lengths.length; j++) {
+            if (lengths[j] < 1) {
+                throw new IllegalArgumentException("length must be positive: " + lengths[j]);
+            }
+            maxLength = Math.max(maxLength, lengths[j]);
+            lengthsMinusOne[j] = lengths[j] - 1;
+            divisors[j] = lengths[j];
+        }
+        this.period = period;
+        this.lengths = lengths.clone();
+        windowUp = new double[maxLength];
+        windowDown = new double[maxLength];
+        averageUp = new double[lengths.length];
+        averageDown = new double[lengths.length];
+        rs = new double[lengths.length];
+        rsi = new double[lengths.length];
+    }
+
+    /**
+     * @param price
+     * @param timestamp
+     * @return true when an interval closed and the per length values changed
+     */
+    public boolean trade(double price, long timestamp) {
+
+        boolean closed = false;
+
+        if (begin == -1) {
+            open = price;
+            begin = timestamp;
+            expectedEnd = (timestamp + period) - 1;
+        } else if (timestamp >= expectedEnd) {
+            close(open, lastPrice);
+            closed = true;
+
+            open = price;
+            begin = expectedEnd + 1;
+            expectedEnd = (expectedEnd + period);
+        }
+
+        lastPrice = price;
+        return closed;
+    }
+
+    private void close(double open, double close) {
+        double changeUp = 0;
+        double changeDown = 0;
+        final double delta = close - open;
+        if (delta > 0) {
+            changeUp = delta;
+        } else {
+            changeDown = 0 - delta;
+        }
+        n++;
+
+        for (int j = 0; j < lengths.length; j++) {
+            final int length = lengths[j];
+            if (n > length) {
+                double up = averageUp[j];
+                double down = averageDown[j];
+                if (!((up > 0) || (down > 0))) {
+                    // kickstart with the SMA of the last `length` changes, oldest first
+                    double sumUp = 0;
+                    double sumDown = 0;
+                    int k = position - length;
+                    if (k < 0) {
+                        k += windowUp.length;
+                    }
+                    for (int c = 0; c < length; c++) {
+                        sumUp += windowUp[k];
+                        sumDown += windowDown[k];
+                        if (++k == windowUp.length) {
+                            k = 0;
+                        }
+                    }
+                    up = sumUp / length;
+                    down = sumDown / length;
+                }
+                up = (changeUp + (up * lengthsMinusOne[j])) / divisors[j];
+                down = (changeDown + (down * lengthsMinusOne[j])) / divisors[j];
+                averageUp[j] = up;
+                averageDown[j] = down;
+                rs[j] = up / down;
+                rsi[j] = 100 - (100 / (1 + rs[j]));
+            }
+        }
+
+        windowUp[position] = changeUp;
+        windowDown[position] = changeDown;
+        if (++position == windowUp.length) {
+            position = 0;
+        }
+    }
+
+    public int lengths() {
+        return lengths.length;
+    }
+
+    public int getLength(int index) {
+        return lengths[index];
+    }
+
+    /**
+     * @param index position of the length in the constructor arguments
+     * @return RSI of the last closed interval, zero during that length's warm-up
+     */
+    public double getRsi(int index) {
+        return rsi[index];
+    }
+
+    public double getRs(int index) {
+        return rs[index];
+    }
+
+    public double getAverageUp(int index) {
+        return averageUp[index];
+    }
+
+    public double getAverageDown(int index) {
+        return averageDown[index];
+    }
+
+    /**
+     * @return number of intervals closed so far
+     */
+    public int count() {
+        return n;
+    }
+
+}
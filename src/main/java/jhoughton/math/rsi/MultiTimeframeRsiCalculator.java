@@ -0,0 +1,178 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+import jhoughton.math.rsi.average.WilderAverage;
+
+/**
+ * RSI for several timeframes of one instrument from a single tick stream, e.g.
+ * 1m, 5m, 15m, 1h and 1d. Ticks are bucketed once at the finest period, and
+ * every closed interval is rolled up into the next coarser timeframe, whose
+ * open is its first finer interval's open and whose close is its last finer
+ * interval's close. Each timeframe keeps its own {@link RsiSeries}, so length
+ * and averager can differ per timeframe.
+ * <p>
+ * As long as every finest interval sees a tick the results match one
+ * {@link RsiCalculator} per timeframe fed the same ticks.
+ *
+ * @author jay
+ *
+ */
+public class MultiTimeframeRsiCalculator {
+
+    private final long period; // finest
+    private final long[] periods;
+    private final int[] ratios; // finer intervals per interval, per timeframe
+    private final RsiSeries[] series;
+
+    // --- roll-up of the coarser timeframes
+    private final double[] opens;
+    private final int[] counts;
+    private final long[] ends;
+
+    // --- current finest interval
+    private double open;
+    private long begin = -1;
+    private long expectedEnd;
+
+    private double lastPrice;
+
+    /**
+     * Wilder averaged timeframes
+     *
+     * @param periods ascending, each a multiple of the one before
+     * @param lengths RSI length per timeframe
+     */
+    public MultiTimeframeRsiCalculator(long[] periods, int[] lengths) {
+        this(periods, wilder(lengths));
+    }
+
+    /**
+     * @param periods ascending, each a multiple of the one before
+     * @param series  RSI state per timeframe
+     */
+    public MultiTimeframeRsiCalculator(long[] periods, RsiSeries[] series) {
+        if (periods.length == 0 || periods.length != series.length) {
+            throw new IllegalArgumentException("need one series per period");
+        }
+        ratios = new int[periods.length];
+        ratios[0] = 1;
+        for (int j = 1; j < periods.length; j++) {
+            if (periods[j] <= periods[j - 1] || periods[j] % periods[j - 1] != 0) {
+                throw new IllegalArgumentException(
+                        "period " + periods[j] + " is not a multiple of " + periods[j - 1]);
+            }
+            ratios[j] = Math.toIntExact(periods[j] / periods[j - 1]);
+        }
+        this.period = periods[0];
+        this.periods = periods.clone();
+        this.series = series.clone();
+        opens = new double[periods.length];
+        counts = new int[periods.length];
+        ends = new long[periods.length];
+    }
+
+    private static RsiSeries[] wilder(int[] lengths) {
+        RsiSeries[] series = new RsiSeries[lengths.length];
+        for (int j = 0; j < lengths.length; j++) {
+            series[j] = new RsiSeries(lengths[j], new WilderAverage(lengths[j]));
+        }
+        return series;
+    }
+
+    /**
+     * @param price
+     * @param timestamp
+     * @return number of timeframes that closed an interval, closes are nested so
+     *         timeframes {@code 0 .. result-1} closed
+     */
+    public int trade(double price, long timestamp) {
+
+        int closed = 0;
+
+        if (begin == -1) {
+            open = price;
+            begin = timestamp;
+            expectedEnd = (timestamp + period) - 1;
+        } else if (timestamp >= expectedEnd) {
+            closed = roll(open, lastPrice, expectedEnd);
+
+            open = price;
+            begin = expectedEnd + 1;
+            expectedEnd = (expectedEnd + period);
+        }
+
+        lastPrice = price;
+        return closed;
+    }
+
+    private int roll(double open, double close, long end) {
+        series[0].close(open, close);
+        ends[0] = end;
+
+        double o = open;
+        for (int j = 1; j < series.length; j++) {
+            if (counts[j]++ == 0) {
+                opens[j] = o;
+            }
+            if (counts[j] < ratios[j]) {
+                return j;
+            }
+            o = opens[j];
+            series[j].close(o, close);
+            ends[j] = end;
+            counts[j] = 0;
+        }
+        return series.length;
+    }
+
+    public int timeframes() {
+        return series.length;
+    }
+
+    public long getPeriod(int timeframe) {
+        return periods[timeframe];
+    }
+
+    /**
+     * @param timeframe
+     * @return last closed interval of the timeframe, overwritten by its next close
+     */
+    public Interval interval(int timeframe) {
+        return series[timeframe].last();
+    }
+
+    /**
+     * @param timeframe
+     * @return end of the timeframe's last closed interval
+     */
+    public long getEnd(int timeframe) {
+        return ends[timeframe];
+    }
+
+    public RsiSeries series(int timeframe) {
+        return series[timeframe];
+    }
+
+}
@@ -0,0 +1,199 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+import java.nio.ByteBuffer;
+
+import jhoughton.math.rsi.average.WilderAverage;
+
+/**
+ * Allocation-free variant of {@link RsiCalculator}. Interval changes are kept
+ * in a primitive ring by {@link RsiSeries} instead of a queue of
+ * {@link Interval}s, and closes are reported through a reusable flyweight
+ * {@link Interval} and an optional {@link IntervalListener}. Once constructed,
+ * {@link #trade(double, long)} allocates nothing.
+ * <p>
+ * Produces the same values as {@link RsiCalculator} for the same averager.
+ *
+ * @author jay
+ *
+ */
+public class PrimitiveRsiCalculator implements Checkpointable {
+
+    private final long period;
+    private final RsiSeries series;
+    private final IntervalListener listener;
+
+    // --- current interval
+    private double open;
+    private long begin = -1;
+    private long expectedEnd;
+
+    private double lastPrice;
+
+    public PrimitiveRsiCalculator(long period, int length) {
+        this(period, length, new WilderAverage(length), null);
+    }
+
+    public PrimitiveRsiCalculator(long period, int length, AverageCalculator averager) {
+        this(period, length, averager, null);
+    }
+
+    /**
+     * @param period
+     * @param length
+     * @param averager
+     * @param listener notified on every close, may be null
+     */
+    public PrimitiveRsiCalculator(long period, int length, AverageCalculator averager, IntervalListener listener) {
+        this(period, new RsiSeries(length, averager), listener);
+    }
+
+    /**
+     * @param period
+     * @param series   interval level state, not shared with other calculators
+     * @param listener notified on every close, may be null
+     */
+    public PrimitiveRsiCalculator(long period, RsiSeries series, IntervalListener listener) {
+        this.period = period;
+        this.series = series;
+        this.listener = listener;
+    }
+
+    /**
+     * @param price
+     * @param timestamp
+     * @return the closed interval or null, the instance is reused on every close
+     *         so copy anything that must outlive the next trade
+     */
+    public Interval trade(double price, long timestamp) {
+
+        Interval i = null;
+
+        if (begin == -1) {
+            open = price;
+            begin = timestamp;
+            expectedEnd = (timestamp + period) - 1;
+        } else if (timestamp >= expectedEnd) {
+            i = series.close(open, lastPrice);
+            if (listener != null) {
+                listener.onInterval(expectedEnd, i.rsi, i.averageUp, i.averageDown);
+            }
+
+            open = price;
+            begin = expectedEnd + 1;
+            expectedEnd = (expectedEnd + period);
+        }
+
+        lastPrice = price;
+        return i;
+    }
+
+    /**
+     * Batch form of {@link #trade(double, long)} for sorted tick arrays. Only
+     * the ticks that open or close an interval are looked at, the rest of an
+     * interval is skipped with a galloping search for the next boundary, so the
+     * cost scales with the number of intervals rather than ticks. Closes are
+     * reported to the listener, the state ends up exactly as with one
+     * {@code trade} call per tick.
+     *
+     * @param timestamps sorted ascending
+     * @param prices
+     * @param offset     first tick
+     * @param length     number of ticks
+     * @return number of intervals closed
+     */
+    public int trade(long[] timestamps, double[] prices, int offset, int length) {
+        TickArrays.checkRange(timestamps, prices, offset, length);
+        final int end = offset + length;
+        int closed = 0;
+        int p = offset;
+        while (p < end) {
+            if (begin != -1) {
+                // ticks before the boundary only move the last price
+                final int q = TickArrays.gallop(timestamps, p, end, expectedEnd);
+                if (q > p) {
+                    lastPrice = prices[q - 1];
+                    p = q;
+                    if (p == end) {
+                        break;
+                    }
+                }
+            }
+            if (trade(prices[p], timestamps[p]) != null) {
+                closed++;
+            }
+            p++;
+        }
+        return closed;
+    }
+
+    /**
+     * Provisional RSI: what the current interval would produce if it closed now
+     * at the last traded price. Constant time, allocation free and does not
+     * change any state.
+     *
+     * @return provisional RSI, NaN until {@code length} intervals have closed
+     */
+    public double liveRsi() {
+        if (begin == -1) {
+            return Double.NaN;
+        }
+        return series.preview(open, lastPrice);
+    }
+
+    public long getBegin() {
+        return begin;
+    }
+
+    public long getExpectedEnd() {
+        return expectedEnd;
+    }
+
+    public RsiSeries series() {
+        return series;
+    }
+
+    @Override
+    public int checkpointSize() {
+        return 8 + 8 + 8 + 8 + 8 + series.checkpointSize();
+    }
+
+    @Override
+    public void checkpoint(ByteBuffer out) {
+        out.putLong(period).putDouble(open).putLong(begin).putLong(expectedEnd).putDouble(lastPrice);
+        series.checkpoint(out);
+    }
+
+    @Override
+    public void restore(ByteBuffer in) {
+        Checkpointable.check("period", period, in.getLong());
+        open = in.getDouble();
+        begin = in.getLong();
+        expectedEnd = in.getLong();
+        lastPrice = in.getDouble();
+        series.restore(in);
+    }
+
+}
@@ -0,0 +1,187 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+/**
+ * Puts out-of-order ticks back in order before they reach a
+ * {@link PrimitiveRsiCalculator}. Ticks are held in a bounded, time-sorted
+ * primitive ring until the watermark, the latest timestamp seen minus the
+ * allowed {@code lateness}, passes them, so an interval is only finalized once
+ * no tick for it can still arrive in time.
+ * <p>
+ * Ticks are inserted from the tail, so an in-order tick is an O(1) append and
+ * a late one costs as many moves as the ticks it overtakes. A tick older than
+ * the last tick already handed on is too late to slot in and is dropped and
+ * counted. When the ring is full the oldest of the held ticks and the new one
+ * is handed on early, so ticks still reach the calculator in order.
+ * <p>
+ * Closed intervals are reported through the wrapped calculator's
+ * {@link IntervalListener}.
+ *
+ * @author jay
+ *
+ */
+public class ReorderingRsiCalculator {
+
+    private final PrimitiveRsiCalculator calculator;
+    private final long lateness;
+
+    // --- sorted ring, oldest at head
+    private final long[] timestamps;
+    private final double[] prices;
+    private final int mask;
+    private int head;
+    private int size;
+
+    private long maxTimestamp = Long.MIN_VALUE;
+    private long released = Long.MIN_VALUE;
+
+    private long dropped;
+    private long reordered;
+
+    /**
+     * @param calculator receives the ticks in timestamp order
+     * @param lateness   how far behind the latest timestamp a tick may arrive
+     * @param capacity   most ticks held back, rounded up to a power of two
+     */
+    public ReorderingRsiCalculator(PrimitiveRsiCalculator calculator, long lateness, int capacity) {
+        if (lateness < 0) {
+            throw new IllegalArgumentException("lateness must not be negative: " + lateness);
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.calculator = calculator;
+        this.lateness = lateness;
+        final int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        mask = size - 1;
+        timestamps = new long[size];
+        prices = new double[size];
+    }
+
+    /**
+     * @param price
+     * @param timestamp
+     * @return number of intervals the released ticks closed
+     */
+    public int trade(double price, long timestamp) {
+        if (timestamp < released) {
+            dropped++;
+            return 0;
+        }
+        if (timestamp > maxTimestamp) {
+            maxTimestamp = timestamp;
+        }
+        int closed = 0;
+        if (size == timestamps.length) {
+            if (timestamp < timestamps[head]) {
+                // older than everything held, so it is next in order anyway
+                reordered++;
+                released = timestamp;
+                return calculator.trade(price, timestamp) != null ? 1 : 0;
+            }
+            closed += release();
+            if (timestamp < released) {
+                dropped++;
+                return closed;
+            }
+        }
+        insert(price, timestamp);
+        final long watermark = maxTimestamp - lateness;
+        while ((size > 0) && (timestamps[head] <= watermark)) {
+            closed += release();
+        }
+        return closed;
+    }
+
+    /**
+     * Hand on every held tick, e.g. at the end of a replay.
+     *
+     * @return number of intervals closed
+     */
+    public int flush() {
+        int closed = 0;
+        while (size > 0) {
+            closed += release();
+        }
+        return closed;
+    }
+
+    private void insert(double price, long timestamp) {
+        // walk back from the tail past later ticks, equal ones keep arrival order
+        int k = size;
+        while ((k > 0) && (timestamps[(head + k - 1) & mask] > timestamp)) {
+            final int from = (head + k - 1) & mask;
+            final int to = (head + k) & mask;
+            timestamps[to] = timestamps[from];
+            prices[to] = prices[from];
+            k--;
+        }
+        if (k < size) {
+            reordered++;
+        }
+        final int slot = (head + k) & mask;
+        timestamps[slot] = timestamp;
+        prices[slot] = price;
+        size++;
+    }
+
+    private int release() {
+        final long timestamp = timestamps[head];
+        final double price = prices[head];
+        head = (head + 1) & mask;
+        size--;
+        released = timestamp;
+        return calculator.trade(price, timestamp) != null ? 1 : 0;
+    }
+
+    /**
+     * @return ticks that arrived too late to be slotted in
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return ticks that were slotted in ahead of later ones
+     */
+    public long getReordered() {
+        return reordered;
+    }
+
+    /**
+     * @return ticks held back
+     */
+    public int buffered() {
+        return size;
+    }
+
+    public long getLateness() {
+        return lateness;
+    }
+
+    public PrimitiveRsiCalculator calculator() {
+        return calculator;
+    }
+}
@@ -23,12 +23,15 @@
  */
 package jhoughton.math.rsi;
 
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Queue;
+import java.util.function.Consumer;
 
 import jhoughton.math.rsi.average.WilderAverage;
+import jhoughton.math.rsi.metrics.RsiMetrics;
 
 /**
  * Calculator for Relative Strength Index (RSI)
@@ -39,7 +42,7 @@ import jhoughton.math.rsi.average.WilderAverage;
  * @author jay
  *
  */
-public class RsiCalculator {
+public class RsiCalculator implements Checkpointable {
 
     // static final Log log = LogFactory.getLog(RsiCalculator.class);
 
@@ -47,6 +50,7 @@ public class RsiCalculator {
     private final int length;
 
     private final AverageCalculator averager;
+    private final AverageCalculator downAverager;
 
     // --- operation
 
@@ -61,74 +65,528 @@ public class RsiCalculator {
     private double lastPrice;
     private Interval lastInterval;
 
+    // --- running SMA sums, only kept during warm-up
+    private double warmUpUp;
+    private double warmUpDown;
+
+    private IntervalListener listener;
+
+    // --- gaps
+    private GapPolicy gapPolicy = GapPolicy.Merge;
+    private Consumer<Interval> gapListener;
+
+    private RsiMetrics metrics;
+
     public RsiCalculator(long period, int length) {
         this(period, length, new WilderAverage(length));
     }
 
     public RsiCalculator(long period, int length, AverageCalculator averager) {
+        this(period, length, averager, averager);
+    }
+
+    /**
+     * Stateful averagers such as {@link jhoughton.math.rsi.average.CutlerAverage}
+     * keep one window per instance, pass separate instances here to keep the
+     * gains and losses apart.
+     *
+     * @param period
+     * @param length
+     * @param upAverager   smooths the up changes
+     * @param downAverager smooths the down changes
+     */
+    public RsiCalculator(long period, int length, AverageCalculator upAverager, AverageCalculator downAverager) {
         this.period = period;
         this.length = length;
-        this.averager = averager;
+        this.averager = upAverager;
+        this.downAverager = downAverager;
     }
 
     public Interval trade(double price, long timestamp) {
 
         Interval i = null;
 
+        if (closes(price, timestamp)) {
+            i = close(open, lastPrice);
+            final long missed = advance(i, price, timestamp);
+            if (missed > 0) {
+                fastForward(missed);
+            }
+        }
+
+        lastPrice = price;
+        return i;
+    }
+
+    /**
+     * Batch form of {@link #trade(double, long)} for sorted tick arrays, e.g. a
+     * historical replay. Only the ticks that open or close an interval go
+     * through {@link #trade(double, long)}, the rest of an interval is skipped
+     * with a galloping search for the next boundary, so the cost scales with
+     * the number of intervals rather than ticks. State, listeners and metrics
+     * end up exactly as with one {@code trade} call per tick.
+     *
+     * @param timestamps sorted ascending
+     * @param prices
+     * @param offset     first tick
+     * @param length     number of ticks
+     * @param out        receives every closed interval, may be null
+     * @return number of intervals closed
+     */
+    public int trade(long[] timestamps, double[] prices, int offset, int length, Consumer<Interval> out) {
+        TickArrays.checkRange(timestamps, prices, offset, length);
+        final int end = offset + length;
+        int closed = 0;
+        int p = offset;
+        while (p < end) {
+            if (begin != -1) {
+                // ticks before the boundary only move the last price
+                final int q = TickArrays.gallop(timestamps, p, end, expectedEnd);
+                if (q > p) {
+                    if (metrics != null) {
+                        metrics.ticks(q - p);
+                        metrics.lateTicks(TickArrays.gallop(timestamps, p, q, begin) - p);
+                    }
+                    lastPrice = prices[q - 1];
+                    p = q;
+                    if (p == end) {
+                        break;
+                    }
+                }
+            }
+            final Interval i = trade(prices[p], timestamps[p]);
+            if (i != null) {
+                closed++;
+                if (out != null) {
+                    out.accept(i);
+                }
+            }
+            p++;
+        }
+        return closed;
+    }
+
+    private Interval close(double open, double close) {
+        final Interval i = append(open, close);
+        if (!warm()) {
+            return complete(i);
+        }
+        return complete(i, smoothUp(i.changeUp, lastInterval.averageUp),
+                smoothDown(i.changeDown, lastInterval.averageDown));
+    }
+
+    /**
+     * Advance over periods that saw no ticks, each one is a flat interval at the
+     * last traded price.
+     *
+     * @param missed number of empty periods
+     */
+    private void fastForward(long missed) {
+        final double flat = lastPrice;
+        long gap = 0;
+        if (gapPolicy == GapPolicy.Emit) {
+            for (; gap < missed; gap++) {
+                final Interval i = close(flat, flat);
+                gapClosed(i, missed, gap);
+                gapListener.accept(i);
+            }
+            return;
+        }
+
+        // warm-up needs the real intervals, but it is at most `length` of them
+        while ((gap < missed) && !warm()) {
+            gapClosed(close(flat, flat), missed, gap++);
+        }
+        if (gap < missed) {
+            // flat intervals only decay the SMMA, use the closed form
+            final long rest = missed - gap;
+            skip(flat, rest, decayUp(lastInterval.averageUp, rest), decayDown(lastInterval.averageDown, rest));
+            gapClosed(lastInterval, missed, missed - 1);
+        }
+    }
+
+    /**
+     * Provisional RSI: what the current interval would produce if it closed now
+     * at the last traded price. Does not change any state and runs in constant
+     * time, so it can be polled on every tick.
+     * <p>
+     * A single stateful averager shared by both sides previews each side against
+     * the same state, so the value can differ slightly from the eventual close.
+     *
+     * @return provisional RSI, NaN until {@code length} intervals have closed
+     */
+    public double liveRsi() {
+        if (!live()) {
+            return Double.NaN;
+        }
+        final double delta = lastPrice - open;
+        final double smmaUp = previewUp(delta > 0 ? delta : 0, liveAverageUp());
+        final double smmaDown = previewDown(delta > 0 ? 0 : 0 - delta, liveAverageDown());
+        return 100 - (100 / (1 + (smmaUp / smmaDown)));
+    }
+
+    // --- averaging hooks, the only part the specialized subclasses override.
+    // Each is a call to one small method of a final class, which the JIT
+    // inlines.
+
+    /**
+     * @return up average after a closed interval's gain
+     */
+    double smoothUp(double change, double previous) {
+        return averager.average(change, previous);
+    }
+
+    /**
+     * @return down average after a closed interval's loss
+     */
+    double smoothDown(double change, double previous) {
+        return downAverager.average(change, previous);
+    }
+
+    /**
+     * @return up average after {@code periods} flat intervals
+     */
+    double decayUp(double average, long periods) {
+        return averager.decay(average, periods);
+    }
+
+    /**
+     * @return down average after {@code periods} flat intervals
+     */
+    double decayDown(double average, long periods) {
+        return downAverager.decay(average, periods);
+    }
+
+    /**
+     * @return what {@link #smoothUp} would return, without changing any state
+     */
+    double previewUp(double change, double previous) {
+        return averager.preview(change, previous);
+    }
+
+    /**
+     * @return what {@link #smoothDown} would return, without changing any state
+     */
+    double previewDown(double change, double previous) {
+        return downAverager.preview(change, previous);
+    }
+
+    /**
+     * Count the tick and open the first interval.
+     *
+     * @return true if the tick closes the current interval
+     */
+    private boolean closes(double price, long timestamp) {
+        if (metrics != null) {
+            metrics.tick();
+            if ((begin != -1) && (timestamp < begin)) {
+                metrics.lateTick();
+            }
+        }
         if (begin == -1) {
             open = price;
             begin = timestamp;
             expectedEnd = (timestamp + period) - 1;
-        } else if (timestamp >= expectedEnd) {
-            i = new Interval(open, lastPrice);
-            intervals.add(i);
+            return false;
+        }
+        return timestamp >= expectedEnd;
+    }
+
+    /**
+     * Report the closed interval and open the next one at the tick's price.
+     *
+     * @return number of whole periods the tick skipped that the gap policy
+     *         wants advanced over, 0 for none
+     */
+    private long advance(Interval i, double price, long timestamp) {
+        if (listener != null) {
+            listener.onInterval(expectedEnd, i.rsi, i.averageUp, i.averageDown);
+        }
+
+        // log.debug("interval #" + n + " [" + begin + "," + expectedEnd + "]
+        // queue.size=" + intervals.size() + ":\n" + i);
+
+        open = price;
+        begin = expectedEnd + 1;
+        expectedEnd = (expectedEnd + period);
+
+        if ((gapPolicy == GapPolicy.Merge) || (timestamp < expectedEnd)) {
+            return 0;
+        }
+        // whole periods went by without a tick
+        final long missed = ((timestamp - expectedEnd) / period) + 1;
+        expectedEnd += missed * period;
+        begin = (expectedEnd - period) + 1;
+        return missed;
+    }
+
+    /**
+     * Report a flat interval of a gap to the interval listener, with the end of
+     * the period it stands for.
+     *
+     * @param missed length of the gap {@link #advance} returned
+     * @param gap    index of the interval within the gap
+     */
+    private void gapClosed(Interval i, long missed, long gap) {
+        if (listener != null) {
+            listener.onInterval(expectedEnd - ((missed - gap) * period), i.rsi, i.averageUp, i.averageDown);
+        }
+    }
+
+    /**
+     * Queue a closed interval and, once enough have closed, kickstart the SMMA
+     * on the previous one. The caller smooths the interval if {@link #warm()}
+     * and finishes it with one of the {@code complete} methods.
+     */
+    private Interval append(double open, double close) {
+        Interval i = new Interval(open, close);
+        intervals.add(i);
+        if (n <= length) {
+            // once warm only "more than length" matters, don't let it wrap
             n++;
+        }
+        if (metrics != null) {
+            metrics.interval();
+        }
+        if (n <= length) {
+            warmUpUp += i.changeUp;
+            warmUpDown += i.changeDown;
+        } else if (!lastInterval.hasSmma()) {
+            // to kickstart this series, we'll use a SMA as the initial SMMA
+            double sumUp = 0;
+            double sumDown = 0;
+            // use SMA for first round calc
+            Iterator<Interval> examine = intervals.iterator();
+            for (int j = 0; j < length; j++) {
+                Interval interval = examine.next();
+                sumUp += interval.changeUp;
+                sumDown += interval.changeDown;
+            }
+            lastInterval.setAverageUp(sumUp / length);
+            lastInterval.setAverageDown(sumDown / length);
+            if (metrics != null) {
+                metrics.kickstart();
+            }
 
-            if (n > length) {
-                // we can now calculate
-                if (!lastInterval.hasSmma()) {
-                    // to kickstart this series, we'll use a SMA as the initial SMMA
-                    double sumUp = 0;
-                    double sumDown = 0;
-                    // use SMA for first round calc
-                    Iterator<Interval> examine = intervals.iterator();
-                    for (int j = 0; j < length; j++) {
-                        Interval interval = examine.next();
-                        sumUp += interval.changeUp;
-                        sumDown += interval.changeDown;
-                    }
-                    lastInterval.setAverageUp(sumUp / length);
-                    lastInterval.setAverageDown(sumDown / length);
+            // log.debug("interval #" + (n - 1) + ":\n" + lastInterval);
+        }
+        return i;
+    }
 
-                    // log.debug("interval #" + (n - 1) + ":\n" + lastInterval);
-                }
+    /**
+     * @return true once {@code length} intervals have closed before the one
+     *         just appended, so it has to be smoothed
+     */
+    private boolean warm() {
+        return n > length;
+    }
+
+    /**
+     * Finish a warm-up interval.
+     */
+    private Interval complete(Interval i) {
+        lastInterval = i;
+        return i;
+    }
+
+    /**
+     * Finish a smoothed interval.
+     */
+    private Interval complete(Interval i, double smmaUp, double smmaDown) {
+        i.setAverageUp(smmaUp);
+        i.setAverageDown(smmaDown);
+
+        i.setRs(i.getAverageUp() / i.getAverageDown());
+        i.setRsi(100 - (100 / (1 + i.getRs())));
+
+        intervals.remove();
+        lastInterval = i;
+        return i;
+    }
+
+    /**
+     * Account for {@code missed} flat intervals past warm-up in one step.
+     *
+     * @param smmaUp   up average after the gap
+     * @param smmaDown down average after the gap
+     */
+    private void skip(double flat, long missed, double smmaUp, double smmaDown) {
+        // the kickstart window only ever looks at the last `length` intervals
+        Interval i = null;
+        for (long j = Math.min(missed, length); j > 0; j--) {
+            i = new Interval(flat, flat);
+            intervals.add(i);
+            intervals.remove();
+        }
+        i.setAverageUp(smmaUp);
+        i.setAverageDown(smmaDown);
+        i.setRs(smmaUp / smmaDown);
+        i.setRsi(100 - (100 / (1 + i.getRs())));
+
+        n = length + 1;
+        lastInterval = i;
+    }
+
+    /**
+     * @return true once a preview is possible
+     */
+    private boolean live() {
+        return (begin != -1) && (n >= length);
+    }
+
+    /**
+     * @return up average a preview smooths against
+     */
+    private double liveAverageUp() {
+        if ((lastInterval != null) && lastInterval.hasSmma()) {
+            return lastInterval.getAverageUp();
+        }
+        // the kickstart SMA, summed in the same order trade() does
+        return n == length ? warmUpUp / length : 0;
+    }
 
-                double lastSmmaUp = lastInterval.getAverageUp();
-                double lastSmmaDown = lastInterval.getAverageDown();
+    /**
+     * @see #liveAverageUp()
+     */
+    private double liveAverageDown() {
+        if ((lastInterval != null) && lastInterval.hasSmma()) {
+            return lastInterval.getAverageDown();
+        }
+        return n == length ? warmUpDown / length : 0;
+    }
 
-                double smmaUp = averager.average(i.getChangeUp(), lastSmmaUp);
-                double smmaDown = averager.average(i.getChangeDown(), lastSmmaDown);
+    /**
+     * @param listener notified of every interval {@link #trade(double, long)}
+     *                 returns, and of the flat intervals a {@link GapPolicy}
+     *                 advances over, together with its end, may be null
+     */
+    public void setIntervalListener(IntervalListener listener) {
+        this.listener = listener;
+    }
 
-                i.setAverageUp(smmaUp);
-                i.setAverageDown(smmaDown);
+    /**
+     * Choose how a tick arriving whole periods after the current interval's end
+     * is handled.
+     *
+     * @param policy
+     * @param synthetic receives the flat intervals of the gap, required for
+     *                  {@link GapPolicy#Emit}
+     */
+    public void setGapPolicy(GapPolicy policy, Consumer<Interval> synthetic) {
+        if ((policy == GapPolicy.Emit) && (synthetic == null)) {
+            throw new IllegalArgumentException("Emit needs a listener for the synthetic intervals");
+        }
+        this.gapPolicy = policy;
+        this.gapListener = synthetic;
+    }
 
-                i.setRs(i.getAverageUp() / i.getAverageDown());
-                i.setRsi(100 - (100 / (1 + i.getRs())));
+    @Override
+    public int checkpointSize() {
+        int size = 8 + 4 + 8 + 8 + 8 + 4 + 8 + 4 + (intervals.size() * Interval.CHECKPOINT_SIZE) + 1;
+        if (lastInterval != null && lastInterval != tail()) {
+            size += Interval.CHECKPOINT_SIZE;
+        }
+        return size + averagersCheckpointSize();
+    }
 
-                intervals.remove();
+    @Override
+    public void checkpoint(ByteBuffer out) {
+        out.putLong(period).putInt(length);
+        out.putDouble(open).putLong(begin).putLong(expectedEnd).putInt(n).putDouble(lastPrice);
+        out.putInt(intervals.size());
+        for (Interval interval : intervals) {
+            interval.checkpoint(out);
+        }
+        // the last interval normally is the queue's tail, keep it that way
+        if (lastInterval == null) {
+            out.put((byte) 0);
+        } else if (lastInterval == tail()) {
+            out.put((byte) 1);
+        } else {
+            out.put((byte) 2);
+            lastInterval.checkpoint(out);
+        }
+        checkpointAveragers(out);
+    }
+
+    @Override
+    public void restore(ByteBuffer in) {
+        Checkpointable.check("period", period, in.getLong());
+        Checkpointable.check("length", length, in.getInt());
+        open = in.getDouble();
+        begin = in.getLong();
+        expectedEnd = in.getLong();
+        n = in.getInt();
+        lastPrice = in.getDouble();
+        intervals.clear();
+        warmUpUp = 0;
+        warmUpDown = 0;
+        Interval interval = null;
+        for (int j = in.getInt(); j > 0; j--) {
+            interval = new Interval();
+            interval.restore(in);
+            intervals.add(interval);
+            if (n <= length) {
+                warmUpUp += interval.changeUp;
+                warmUpDown += interval.changeDown;
             }
+        }
+        final byte last = in.get();
+        if (last == 0) {
+            lastInterval = null;
+        } else if (last == 1) {
+            lastInterval = interval;
+        } else {
+            lastInterval = new Interval();
+            lastInterval.restore(in);
+        }
+        restoreAveragers(in);
+    }
 
-            // log.debug("interval #" + n + " [" + begin + "," + expectedEnd + "]
-            // queue.size=" + intervals.size() + ":\n" + i);
+    // averager state, subclasses that keep their own averagers write them here
 
-            open = price;
-            begin = expectedEnd + 1;
-            expectedEnd = (expectedEnd + period);
-            lastInterval = i;
+    int averagersCheckpointSize() {
+        return Checkpointable.checkpointSize(averager) + Checkpointable.checkpointSize(downAverager);
+    }
+
+    void checkpointAveragers(ByteBuffer out) {
+        Checkpointable.checkpoint(averager, out);
+        Checkpointable.checkpoint(downAverager, out);
+    }
+
+    void restoreAveragers(ByteBuffer in) {
+        Checkpointable.restore(averager, in);
+        Checkpointable.restore(downAverager, in);
+    }
+
+    private Interval tail() {
+        Interval tail = null;
+        for (Interval interval : intervals) {
+            tail = interval;
         }
+        return tail;
+    }
 
-        lastPrice = price;
-        return i;
+    /**
+     * Count ticks, intervals, late ticks and kickstarts into the metrics, null
+     * to turn instrumentation off.
+     *
+     * @param metrics may be shared by many calculators
+     */
+    public void setMetrics(RsiMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public RsiMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return last timestamp of the interval currently open, the end the next
+     *         closed interval will be reported with
+     */
+    public long getExpectedEnd() {
+        return expectedEnd;
     }
 
     /**
@@ -140,4 +598,23 @@ public class RsiCalculator {
         return intervals;
     }
 
+    /**
+     * What to do with periods that saw no ticks at all.
+     */
+    public static enum GapPolicy {
+        /** fold the gap into the next interval, the historical behaviour */
+        Merge,
+        /**
+         * advance over the gap as flat intervals without handing them to the
+         * synthetic listener, the interval listener sees the warm-up ones and
+         * the last one
+         */
+        Skip,
+        /**
+         * advance over the gap and hand every flat interval to the synthetic
+         * listener and the interval listener
+         */
+        Emit;
+    }
+
 }
@@ -0,0 +1,235 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Interval level RSI state: takes each closed interval's open &amp; close and
+ * keeps the SMMA, the SMA kickstart window and the interval count, the same
+ * math {@link RsiCalculator} runs once its time bucketing closes an interval.
+ * <p>
+ * The kickstart window is a primitive ring of the last {@code length} changes
+ * rather than a queue of {@link Interval}s, and results are written into a
+ * single reusable {@link Interval} so closing an interval allocates nothing.
+ *
+ * @author jay
+ *
+ */
+public class RsiSeries implements Checkpointable {
+
+    private final int length;
+    private final AverageCalculator averager;
+    private final AverageCalculator downAverager;
+
+    // --- kickstart window, last `length` changes before the current interval
+    private final double[] windowUp;
+    private final double[] windowDown;
+    private int position;
+
+    private int n = 0; // intervalCounter
+
+    // --- averages of the last closed interval
+    private double averageUp;
+    private double averageDown;
+
+    // --- running SMA sums, only kept during warm-up
+    private double warmUpUp;
+    private double warmUpDown;
+
+    private final Interval flyweight = new Interval();
+
+    public RsiSeries(int length, AverageCalculator averager) {
+        this(length, averager, averager);
+    }
+
+    /**
+     * @param length
+     * @param upAverager   smooths the up changes
+     * @param downAverager smooths the down changes, pass a separate instance
+     *                     for stateful averagers
+     */
+    public RsiSeries(int length, AverageCalculator upAverager, AverageCalculator downAverager) {
+        if (length < 1) {
+            throw new IllegalArgumentException("length must be positive: " + length);
+        }
+        this.length = length;
+        this.averager = upAverager;
+        this.downAverager = downAverager;
+        windowUp = new double[length];
+        windowDown = new double[length];
+    }
+
+    /**
+     * Close an interval.
+     *
+     * @param open  first price of the interval
+     * @param close last price of the interval
+     * @return the reusable interval, overwritten by the next call
+     */
+    public Interval close(double open, double close) {
+        double changeUp = 0;
+        double changeDown = 0;
+        final double delta = close - open;
+        if (delta > 0) {
+            changeUp = delta;
+        } else {
+            changeDown = 0 - delta;
+        }
+
+        final Interval i = flyweight;
+        i.open = open;
+        i.close = close;
+        i.changeUp = changeUp;
+        i.changeDown = changeDown;
+        n++;
+
+        if (n > length) {
+            if (!((averageUp > 0) || (averageDown > 0))) {
+                // to kickstart this series, we'll use a SMA as the initial SMMA,
+                // summed oldest first just like the interval queue
+                double sumUp = 0;
+                double sumDown = 0;
+                int j = position;
+                for (int k = 0; k < length; k++) {
+                    sumUp += windowUp[j];
+                    sumDown += windowDown[j];
+                    if (++j == length) {
+                        j = 0;
+                    }
+                }
+                averageUp = sumUp / length;
+                averageDown = sumDown / length;
+            }
+
+            averageUp = averager.average(changeUp, averageUp);
+            averageDown = downAverager.average(changeDown, averageDown);
+
+            i.averageUp = averageUp;
+            i.averageDown = averageDown;
+            i.rs = averageUp / averageDown;
+            i.rsi = 100 - (100 / (1 + i.rs));
+        } else {
+            i.averageUp = 0;
+            i.averageDown = 0;
+            i.rs = 0;
+            i.rsi = 0;
+            warmUpUp += changeUp;
+            warmUpDown += changeDown;
+        }
+
+        windowUp[position] = changeUp;
+        windowDown[position] = changeDown;
+        if (++position == length) {
+            position = 0;
+        }
+        return i;
+    }
+
+    /**
+     * Provisional RSI of an interval that has not closed yet, without changing
+     * any state. Constant time.
+     *
+     * @param open  first price of the interval
+     * @param close latest price of the interval
+     * @return provisional RSI, NaN until {@code length} intervals have closed
+     */
+    public double preview(double open, double close) {
+        if (n < length) {
+            return Double.NaN;
+        }
+        double lastUp = averageUp;
+        double lastDown = averageDown;
+        if (!((lastUp > 0) || (lastDown > 0)) && (n == length)) {
+            lastUp = warmUpUp / length;
+            lastDown = warmUpDown / length;
+        }
+        final double delta = close - open;
+        final double up = averager.preview(delta > 0 ? delta : 0, lastUp);
+        final double down = downAverager.preview(delta > 0 ? 0 : 0 - delta, lastDown);
+        return 100 - (100 / (1 + (up / down)));
+    }
+
+    /**
+     * @return number of intervals closed so far
+     */
+    public int count() {
+        return n;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return the last closed interval, overwritten by the next close
+     */
+    public Interval last() {
+        return flyweight;
+    }
+
+    @Override
+    public int checkpointSize() {
+        return 4 + (16 * length) + 4 + 4 + 8 + 8 + Interval.CHECKPOINT_SIZE + Checkpointable.checkpointSize(averager)
+                + Checkpointable.checkpointSize(downAverager);
+    }
+
+    @Override
+    public void checkpoint(ByteBuffer out) {
+        out.putInt(length);
+        for (int j = 0; j < length; j++) {
+            out.putDouble(windowUp[j]).putDouble(windowDown[j]);
+        }
+        out.putInt(position).putInt(n).putDouble(averageUp).putDouble(averageDown);
+        flyweight.checkpoint(out);
+        Checkpointable.checkpoint(averager, out);
+        Checkpointable.checkpoint(downAverager, out);
+    }
+
+    @Override
+    public void restore(ByteBuffer in) {
+        Checkpointable.check("length", length, in.getInt());
+        for (int j = 0; j < length; j++) {
+            windowUp[j] = in.getDouble();
+            windowDown[j] = in.getDouble();
+        }
+        position = in.getInt();
+        n = in.getInt();
+        averageUp = in.getDouble();
+        averageDown = in.getDouble();
+        flyweight.restore(in);
+        warmUpUp = 0;
+        warmUpDown = 0;
+        if (n <= length) {
+            // during warm-up the window holds every interval, oldest at 0
+            for (int j = 0; j < n; j++) {
+                warmUpUp += windowUp[j];
+                warmUpDown += windowDown[j];
+            }
+        }
+        Checkpointable.restore(averager, in);
+        Checkpointable.restore(downAverager, in);
+    }
+
+}
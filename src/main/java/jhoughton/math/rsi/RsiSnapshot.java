@@ -0,0 +1,185 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Latest closed interval of a calculator, published by a single writer and
+ * read by any number of threads without locks. A sequence lock guards the
+ * fields: the writer bumps the sequence to odd, writes, and releases it even
+ * again, readers retry until they see the same even sequence on both sides of
+ * their copy. The writer never waits for readers and reading allocates
+ * nothing.
+ * <p>
+ * Hook it up as the {@link IntervalListener} of a calculator running on the
+ * feed thread. Intervals closed during warm-up, before the first SMMA, have no
+ * RSI yet and are published with a NaN RS and RSI.
+ *
+ * @author jay
+ *
+ */
+public class RsiSnapshot implements IntervalListener {
+
+    private static final VarHandle SEQUENCE;
+    static {
+        try {
+            SEQUENCE = MethodHandles.lookup().findVarHandle(RsiSnapshot.class, "sequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @SuppressWarnings("unused") // accessed through SEQUENCE
+    private long sequence;
+
+    private long end;
+    private double averageUp;
+    private double averageDown;
+    private double rs;
+    private double rsi;
+
+    /**
+     * Publish a new tuple, only one thread may call this.
+     */
+    public void publish(long end, double averageUp, double averageDown, double rs, double rsi) {
+        final long s = (long) SEQUENCE.get(this);
+        SEQUENCE.setOpaque(this, s + 1);
+        VarHandle.storeStoreFence();
+        this.end = end;
+        this.averageUp = averageUp;
+        this.averageDown = averageDown;
+        this.rs = rs;
+        this.rsi = rsi;
+        SEQUENCE.setRelease(this, s + 2);
+    }
+
+    public void publish(long end, Interval interval) {
+        if (interval.hasSmma()) {
+            publish(end, interval.getAverageUp(), interval.getAverageDown(), interval.getRs(), interval.getRsi());
+        } else {
+            publish(end, 0, 0, Double.NaN, Double.NaN);
+        }
+    }
+
+    @Override
+    public void onInterval(long end, double rsi, double averageUp, double averageDown) {
+        if ((averageUp > 0) || (averageDown > 0)) {
+            publish(end, averageUp, averageDown, averageUp / averageDown, rsi);
+        } else {
+            // still warming up, the interval's RSI of 0 is not a value
+            publish(end, 0, 0, Double.NaN, Double.NaN);
+        }
+    }
+
+    /**
+     * Copy a consistent tuple, spinning only while a write is in progress.
+     *
+     * @param into reusable holder
+     * @return false when nothing has been published yet
+     */
+    public boolean read(View into) {
+        while (true) {
+            final long before = (long) SEQUENCE.getAcquire(this);
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            final long e = end;
+            final double up = averageUp;
+            final double down = averageDown;
+            final double r = rs;
+            final double index = rsi;
+            VarHandle.loadLoadFence();
+            if ((long) SEQUENCE.getOpaque(this) == before) {
+                into.version = before >>> 1;
+                into.end = e;
+                into.averageUp = up;
+                into.averageDown = down;
+                into.rs = r;
+                into.rsi = index;
+                return before != 0;
+            }
+        }
+    }
+
+    /**
+     * @return latest RSI, NaN when nothing has been published yet or the
+     *         calculator is still warming up
+     */
+    public double latestRsi() {
+        while (true) {
+            final long before = (long) SEQUENCE.getAcquire(this);
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            final double index = rsi;
+            VarHandle.loadLoadFence();
+            if ((long) SEQUENCE.getOpaque(this) == before) {
+                return before == 0 ? Double.NaN : index;
+            }
+        }
+    }
+
+    /**
+     * reader side holder, reuse one per reader thread
+     */
+    public static final class View {
+        long version;
+        long end;
+        double averageUp;
+        double averageDown;
+        double rs;
+        double rsi;
+
+        /**
+         * @return number of publishes seen, increases with every interval
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+
+        public double getAverageUp() {
+            return averageUp;
+        }
+
+        public double getAverageDown() {
+            return averageDown;
+        }
+
+        public double getRs() {
+            return rs;
+        }
+
+        public double getRsi() {
+            return rsi;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+/**
+ * Search helpers for the batch {@code trade} methods over sorted tick arrays.
+ *
+ * @author jay
+ *
+ */
+final class TickArrays {
+
+    private TickArrays() {}
+
+    /**
+     * Galloping search: probe 1, 2, 4... ticks ahead, then binary-search the
+     * last step. Costs O(log d) for a boundary d ticks away, so short hops stay
+     * cheap however long the array.
+     *
+     * @param timestamps sorted ascending
+     * @param from       first index searched
+     * @param to         end of the search range, exclusive
+     * @param key
+     * @return first index in {@code [from, to)} with a timestamp {@code >= key},
+     *         or {@code to}
+     */
+    static int gallop(long[] timestamps, int from, int to, long key) {
+        if ((from >= to) || (timestamps[from] >= key)) {
+            return from;
+        }
+        // timestamps[lo] < key throughout
+        int lo = from;
+        int step = 1;
+        int hi = from + step;
+        while ((hi < to) && (timestamps[hi] < key)) {
+            lo = hi;
+            step <<= 1;
+            hi = (to - lo) > step ? lo + step : to;
+        }
+        // first index in (lo, hi] that is >= key, hi itself if none before it
+        lo++;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (timestamps[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    static void checkRange(long[] timestamps, double[] prices, int offset, int length) {
+        if ((offset < 0) || (length < 0) || (offset > (timestamps.length - length))
+                || (offset > (prices.length - length))) {
+            throw new IndexOutOfBoundsException(
+                    "range [" + offset + ", " + offset + " + " + length + ") out of bounds for " + timestamps.length
+                            + " timestamps and " + prices.length + " prices");
+        }
+    }
+}
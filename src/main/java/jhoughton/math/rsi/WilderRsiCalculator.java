@@ -0,0 +1,84 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+import jhoughton.math.rsi.average.WilderAverage;
+
+/**
+ * {@link RsiCalculator} specialized for Wilder's SMMA. The class is final and
+ * overrides only the averaging hooks, with the smoothing math written out
+ * against final fields, so nothing on the per-interval path goes through the
+ * {@link AverageCalculator} interface.
+ * <p>
+ * Create it with {@link AverageCalculator.Averager#newCalculator(long, int)}.
+ * Results and checkpoints are the same as an {@link RsiCalculator} with a
+ * {@link WilderAverage}.
+ *
+ * @author jay
+ *
+ */
+public final class WilderRsiCalculator extends RsiCalculator {
+
+    private final int length;
+    private final int lengthMinusOne;
+    private final double decayFactor;
+
+    public WilderRsiCalculator(long period, int length) {
+        // stateless, the superclass only writes its length into checkpoints
+        super(period, length, new WilderAverage(length));
+        this.length = length;
+        this.lengthMinusOne = length - 1;
+        this.decayFactor = (double) lengthMinusOne / length;
+    }
+
+    @Override
+    double smoothUp(double change, double previous) {
+        return (change + (previous * lengthMinusOne)) / length;
+    }
+
+    @Override
+    double smoothDown(double change, double previous) {
+        return (change + (previous * lengthMinusOne)) / length;
+    }
+
+    @Override
+    double decayUp(double average, long periods) {
+        return average * Math.pow(decayFactor, periods);
+    }
+
+    @Override
+    double decayDown(double average, long periods) {
+        return average * Math.pow(decayFactor, periods);
+    }
+
+    @Override
+    double previewUp(double change, double previous) {
+        return (change + (previous * lengthMinusOne)) / length;
+    }
+
+    @Override
+    double previewDown(double change, double previous) {
+        return (change + (previous * lengthMinusOne)) / length;
+    }
+}
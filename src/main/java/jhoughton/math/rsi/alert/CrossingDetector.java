@@ -0,0 +1,133 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.alert;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.engine.IntervalHandler;
+import jhoughton.math.rsi.engine.SymbolTable;
+
+/**
+ * Detects RSI threshold crossings for any number of "symbol X RSI crosses
+ * above/below Y" subscriptions. Every symbol keeps its thresholds in two sorted
+ * {@link ThresholdIndex}es, a new RSI value is compared with the previous one
+ * and only the crossed run of thresholds is visited.
+ * <ul>
+ * <li>above Y fires when {@code previous < Y <= rsi}, in ascending order</li>
+ * <li>below Y fires when {@code previous > Y >= rsi}, in descending order</li>
+ * </ul>
+ * The first RSI seen for a symbol only sets the previous value. Not
+ * thread-safe, use one detector per engine shard or feed it from one thread.
+ *
+ * @author jay
+ *
+ */
+public class CrossingDetector implements IntervalHandler {
+
+    private final SymbolTable<Subscriptions> symbols = new SymbolTable<>();
+    private final CrossingListener listener;
+
+    public CrossingDetector(CrossingListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @param subscriptionId caller's handle, reported with every crossing
+     * @param symbolId
+     * @param threshold      0 to 100
+     * @param crossing
+     */
+    public void subscribe(long subscriptionId, long symbolId, double threshold, Crossing crossing) {
+        symbols.computeIfAbsent(symbolId, id -> new Subscriptions()).index(crossing).add(subscriptionId, threshold);
+    }
+
+    /**
+     * @return false if the subscription wasn't found for the symbol
+     */
+    public boolean unsubscribe(long subscriptionId, long symbolId) {
+        Subscriptions s = symbols.get(symbolId);
+        return (s != null) && (s.above.remove(subscriptionId) || s.below.remove(subscriptionId));
+    }
+
+    /**
+     * Intervals still in the warm-up, without a smoothed average, are ignored.
+     */
+    @Override
+    public void onInterval(long symbolId, long end, Interval interval) {
+        if (interval.hasSmma()) {
+            update(symbolId, interval.getRsi());
+        }
+    }
+
+    /**
+     * @param symbolId
+     * @param rsi      the symbol's new RSI
+     * @return number of crossings reported
+     */
+    public int update(long symbolId, double rsi) {
+        final Subscriptions s = symbols.get(symbolId);
+        if (s == null) {
+            return 0;
+        }
+        final double previous = s.previous;
+        s.previous = rsi;
+        if (Double.isNaN(previous) || Double.isNaN(rsi) || (previous == rsi)) {
+            return 0;
+        }
+        if (rsi > previous) {
+            final ThresholdIndex index = s.above;
+            final int from = index.upperBound(previous);
+            final int to = index.upperBound(rsi);
+            for (int i = from; i < to; i++) {
+                listener.onCrossing(index.subscription(i), symbolId, index.threshold(i), Crossing.Above, rsi);
+            }
+            return to - from;
+        }
+        final ThresholdIndex index = s.below;
+        final int from = index.lowerBound(rsi);
+        final int to = index.lowerBound(previous);
+        for (int i = to - 1; i >= from; i--) {
+            listener.onCrossing(index.subscription(i), symbolId, index.threshold(i), Crossing.Below, rsi);
+        }
+        return to - from;
+    }
+
+    /**
+     * @return the symbol's index for one direction, null if it has no
+     *         subscriptions
+     */
+    public ThresholdIndex index(long symbolId, Crossing crossing) {
+        Subscriptions s = symbols.get(symbolId);
+        return s == null ? null : s.index(crossing);
+    }
+
+    static final class Subscriptions {
+        final ThresholdIndex above = new ThresholdIndex();
+        final ThresholdIndex below = new ThresholdIndex();
+        double previous = Double.NaN;
+
+        ThresholdIndex index(Crossing crossing) {
+            return crossing == Crossing.Above ? above : below;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.alert;
+
+import java.util.Arrays;
+
+/**
+ * One symbol's thresholds for one {@link Crossing} direction, kept sorted in
+ * parallel primitive arrays. The thresholds crossed between two RSI values form
+ * one contiguous run, found with two binary searches, so a lookup costs
+ * O(log k + crossings) however many subscriptions there are.
+ * <p>
+ * Subscribing and unsubscribing shift the arrays and are O(k), they are
+ * expected to be rare next to lookups.
+ *
+ * @author jay
+ *
+ */
+public class ThresholdIndex {
+
+    private double[] thresholds = new double[4];
+    private long[] subscriptions = new long[4];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public double threshold(int index) {
+        return thresholds[index];
+    }
+
+    public long subscription(int index) {
+        return subscriptions[index];
+    }
+
+    /**
+     * @param subscriptionId
+     * @param threshold      0 to 100
+     */
+    public void add(long subscriptionId, double threshold) {
+        if (!((threshold >= 0) && (threshold <= 100))) {
+            throw new IllegalArgumentException("threshold must be within [0,100]: " + threshold);
+        }
+        if (size == thresholds.length) {
+            thresholds = Arrays.copyOf(thresholds, size << 1);
+            subscriptions = Arrays.copyOf(subscriptions, size << 1);
+        }
+        // after any equal thresholds, so equal ones fire in subscription order
+        final int at = upperBound(threshold);
+        System.arraycopy(thresholds, at, thresholds, at + 1, size - at);
+        System.arraycopy(subscriptions, at, subscriptions, at + 1, size - at);
+        thresholds[at] = threshold;
+        subscriptions[at] = subscriptionId;
+        size++;
+    }
+
+    /**
+     * @param subscriptionId
+     * @return false if it wasn't subscribed
+     */
+    public boolean remove(long subscriptionId) {
+        for (int i = 0; i < size; i++) {
+            if (subscriptions[i] == subscriptionId) {
+                System.arraycopy(thresholds, i + 1, thresholds, i, size - i - 1);
+                System.arraycopy(subscriptions, i + 1, subscriptions, i, size - i - 1);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param value
+     * @return index of the first threshold {@code >= value}
+     */
+    public int lowerBound(double value) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (thresholds[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @param value
+     * @return index of the first threshold {@code > value}
+     */
+    public int upperBound(double value) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (thresholds[mid] <= value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
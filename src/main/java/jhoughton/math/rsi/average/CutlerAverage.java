@@ -23,7 +23,11 @@
  */
 package jhoughton.math.rsi.average;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 import jhoughton.math.rsi.AverageCalculator;
+import jhoughton.math.rsi.Checkpointable;
 
 /**
  * Cutler's approach uses the simple moving average (SMA) instead of Wilder's
@@ -35,7 +39,7 @@ import jhoughton.math.rsi.AverageCalculator;
  * @author jay
  *
  */
-public class CutlerAverage implements AverageCalculator {
+public class CutlerAverage implements AverageCalculator, Checkpointable {
     private final double[] ring;
     private double sum = 0L;
     private int fill;
@@ -62,4 +66,55 @@ public class CutlerAverage implements AverageCalculator {
         return sum / fill;
     }
 
+    @Override
+    public double preview(double point, double lastChange) {
+        if (fill == ring.length) {
+            return ((sum - ring[position]) + point) / fill;
+        }
+        return (sum + point) / (fill + 1);
+    }
+
+    /**
+     * once the window has seen {@code size} flat intervals it is all zeros, so
+     * a gap costs at most {@code size} steps
+     */
+    @Override
+    public double decay(double lastChange, long intervals) {
+        if (intervals >= ring.length) {
+            Arrays.fill(ring, 0);
+            sum = 0;
+            fill = ring.length;
+            return 0;
+        }
+        double average = lastChange;
+        for (long j = 0; j < intervals; j++) {
+            average = average(0, average);
+        }
+        return average;
+    }
+
+    @Override
+    public int checkpointSize() {
+        return 4 + 8 + 4 + 4 + (8 * ring.length);
+    }
+
+    @Override
+    public void checkpoint(ByteBuffer out) {
+        out.putInt(ring.length).putDouble(sum).putInt(fill).putInt(position);
+        for (double point : ring) {
+            out.putDouble(point);
+        }
+    }
+
+    @Override
+    public void restore(ByteBuffer in) {
+        Checkpointable.check("size", ring.length, in.getInt());
+        sum = in.getDouble();
+        fill = in.getInt();
+        position = in.getInt();
+        for (int j = 0; j < ring.length; j++) {
+            ring[j] = in.getDouble();
+        }
+    }
+
 }
@@ -23,7 +23,10 @@
  */
 package jhoughton.math.rsi.average;
 
+import java.nio.ByteBuffer;
+
 import jhoughton.math.rsi.AverageCalculator;
+import jhoughton.math.rsi.Checkpointable;
 
 /**
  * Wilder based his calculation on an exponential smoothed moving average
@@ -33,7 +36,7 @@ import jhoughton.math.rsi.AverageCalculator;
  * @author jay
  *
  */
-public class WilderAverage implements AverageCalculator {
+public class WilderAverage implements AverageCalculator, Checkpointable {
 
     protected final int length;
     protected final int lengthMinusOne; // pre-compute
@@ -48,4 +51,29 @@ public class WilderAverage implements AverageCalculator {
         return (change + ((lastChange * lengthMinusOne))) / length;
     }
 
+    /**
+     * closed form of k flat intervals: {@code avg * ((n-1)/n)^k}
+     */
+    @Override
+    public double decay(double lastChange, long intervals) {
+        return lastChange * Math.pow((double) lengthMinusOne / length, intervals);
+    }
+
+    // stateless, the length is only written to catch mismatched restores
+
+    @Override
+    public int checkpointSize() {
+        return 4;
+    }
+
+    @Override
+    public void checkpoint(ByteBuffer out) {
+        out.putInt(length);
+    }
+
+    @Override
+    public void restore(ByteBuffer in) {
+        Checkpointable.check("length", length, in.getInt());
+    }
+
 }
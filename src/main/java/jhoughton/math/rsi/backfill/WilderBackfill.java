@@ -0,0 +1,241 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.backfill;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel backfill of Wilder RSI over a long interval history.
+ * <p>
+ * Wilder's SMMA {@code a' = (x + a*(n-1)) / n} is an affine map of the previous
+ * average, and affine maps compose associatively. The history is split into
+ * chunks, each chunk's composed map is solved in parallel, the maps are
+ * stitched with a parallel prefix scan to find every chunk's starting average,
+ * and finally every chunk is replayed in parallel from its start.
+ * <p>
+ * Intervals are given as open &amp; close pairs, exactly what
+ * {@link jhoughton.math.rsi.RsiCalculator} closes, and the first
+ * {@code length} intervals seed the SMMA with their SMA just like it does.
+ * Outputs agree with the sequential calculator to within {@link #TOLERANCE},
+ * the only difference being the rounding of each chunk's start.
+ *
+ * @author jay
+ *
+ */
+public class WilderBackfill {
+
+    /**
+     * difference allowed against the sequential result, relative to
+     * {@code max(1, |value|)}
+     */
+    public static final double TOLERANCE = 1e-9;
+
+    static final int DEFAULT_CHUNK = 1 << 14;
+
+    private final int length;
+    private final int lengthMinusOne; // pre-compute
+    private final double decay;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public WilderBackfill(int length) {
+        this(length, ForkJoinPool.commonPool(), DEFAULT_CHUNK);
+    }
+
+    /**
+     * @param length    RSI length
+     * @param pool      pool running the chunks
+     * @param chunkSize intervals solved per task
+     */
+    public WilderBackfill(int length, ForkJoinPool pool, int chunkSize) {
+        if (length < 1) {
+            throw new IllegalArgumentException("length must be positive: " + length);
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.length = length;
+        this.lengthMinusOne = length - 1;
+        this.decay = (double) lengthMinusOne / length;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Compute averages and RSI for {@code count} intervals. Entries before
+     * index {@code length} are warm-up and left at zero.
+     *
+     * @param open        per interval open
+     * @param close       per interval close
+     * @param count       number of intervals
+     * @param averageUp   output
+     * @param averageDown output
+     * @param rsi         output
+     */
+    public void backfill(double[] open, double[] close, int count, double[] averageUp, double[] averageDown,
+            double[] rsi) {
+        Arrays.fill(averageUp, 0, Math.min(count, length), 0);
+        Arrays.fill(averageDown, 0, Math.min(count, length), 0);
+        Arrays.fill(rsi, 0, Math.min(count, length), 0);
+        if (count <= length) {
+            return;
+        }
+
+        // SMA kickstart over the first `length` intervals, summed in order
+        double seedUp = 0;
+        double seedDown = 0;
+        for (int k = 0; k < length; k++) {
+            final double delta = close[k] - open[k];
+            if (delta > 0) {
+                seedUp += delta;
+            } else {
+                seedDown += 0 - delta;
+            }
+        }
+        seedUp /= length;
+        seedDown /= length;
+
+        final int chunks = (count - length + chunkSize - 1) / chunkSize;
+        pool.invoke(new Backfill(open, close, count, averageUp, averageDown, rsi, seedUp, seedDown, chunks));
+    }
+
+    /**
+     * affine map {@code a -> a * mul + add}
+     */
+    static final class Affine {
+        final double mulUp;
+        final double addUp;
+        final double mulDown;
+        final double addDown;
+
+        Affine(double mulUp, double addUp, double mulDown, double addDown) {
+            this.mulUp = mulUp;
+            this.addUp = addUp;
+            this.mulDown = mulDown;
+            this.addDown = addDown;
+        }
+
+        /**
+         * @return this map followed by next
+         */
+        Affine then(Affine next) {
+            return new Affine(mulUp * next.mulUp, addUp * next.mulUp + next.addUp,
+                    mulDown * next.mulDown, addDown * next.mulDown + next.addDown);
+        }
+    }
+
+    final class Backfill extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final double[] open;
+        final double[] close;
+        final int count;
+        final double[] averageUp;
+        final double[] averageDown;
+        final double[] rsi;
+        final double seedUp;
+        final double seedDown;
+        final Affine[] maps;
+
+        Backfill(double[] open, double[] close, int count, double[] averageUp, double[] averageDown, double[] rsi,
+                double seedUp, double seedDown, int chunks) {
+            this.open = open;
+            this.close = close;
+            this.count = count;
+            this.averageUp = averageUp;
+            this.averageDown = averageDown;
+            this.rsi = rsi;
+            this.seedUp = seedUp;
+            this.seedDown = seedDown;
+            this.maps = new Affine[chunks];
+        }
+
+        @Override
+        protected void compute() {
+            // 1. each chunk's composed map, solved from a zero start
+            invokeAll(chunks(true));
+            // 2. inclusive prefix scan, maps[c] now takes the seed to the end of chunk c
+            Arrays.parallelPrefix(maps, Affine::then);
+            // 3. replay every chunk from its real starting averages
+            invokeAll(chunks(false));
+        }
+
+        private RecursiveAction[] chunks(boolean summarize) {
+            RecursiveAction[] tasks = new RecursiveAction[maps.length];
+            for (int c = 0; c < maps.length; c++) {
+                final int chunk = c;
+                tasks[c] = new RecursiveAction() {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected void compute() {
+                        if (summarize) {
+                            summarize(chunk);
+                        } else {
+                            replay(chunk);
+                        }
+                    }
+                };
+            }
+            return tasks;
+        }
+
+        private void summarize(int chunk) {
+            final int from = length + chunk * chunkSize;
+            final int to = Math.min(count, from + chunkSize);
+            double up = 0;
+            double down = 0;
+            for (int k = from; k < to; k++) {
+                final double delta = close[k] - open[k];
+                up = (Math.max(delta, 0) + (up * lengthMinusOne)) / length;
+                down = (Math.max(-delta, 0) + (down * lengthMinusOne)) / length;
+            }
+            final double mul = Math.pow(decay, to - from);
+            maps[chunk] = new Affine(mul, up, mul, down);
+        }
+
+        private void replay(int chunk) {
+            final int from = length + chunk * chunkSize;
+            final int to = Math.min(count, from + chunkSize);
+            double up = seedUp;
+            double down = seedDown;
+            if (chunk > 0) {
+                final Affine start = maps[chunk - 1];
+                up = seedUp * start.mulUp + start.addUp;
+                down = seedDown * start.mulDown + start.addDown;
+            }
+            for (int k = from; k < to; k++) {
+                final double delta = close[k] - open[k];
+                up = (Math.max(delta, 0) + (up * lengthMinusOne)) / length;
+                down = (Math.max(-delta, 0) + (down * lengthMinusOne)) / length;
+                averageUp[k] = up;
+                averageDown[k] = down;
+                rsi[k] = 100 - (100 / (1 + (up / down)));
+            }
+        }
+    }
+
+}
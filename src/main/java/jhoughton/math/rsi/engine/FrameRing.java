@@ -0,0 +1,103 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import jhoughton.math.rsi.TickConsumer;
+
+/**
+ * Pre-allocated multi-producer, single-consumer ring of fixed-size raw frames,
+ * held back to back in one direct buffer. Same sequencing as {@link TickRing}.
+ *
+ * @author jay
+ *
+ */
+public class FrameRing {
+
+    private final RingSequencer sequencer;
+    private final int frameSize;
+    private final ByteBuffer frames;
+
+    /**
+     * @param capacity  rounded up to a power of two
+     * @param frameSize bytes per frame
+     */
+    public FrameRing(int capacity, int frameSize) {
+        if (frameSize < 1) {
+            throw new IllegalArgumentException("frameSize must be positive: " + frameSize);
+        }
+        sequencer = new RingSequencer(capacity);
+        this.frameSize = frameSize;
+        frames = ByteBuffer.allocateDirect(sequencer.capacity() * frameSize).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public int capacity() {
+        return sequencer.capacity();
+    }
+
+    public int frameSize() {
+        return frameSize;
+    }
+
+    /**
+     * Copy one frame from {@code src}, starting at its position, spinning while
+     * the ring is full. The source position is left untouched.
+     *
+     * @param src at least {@link #frameSize()} bytes remaining
+     */
+    public void publish(ByteBuffer src) {
+        if (src.remaining() < frameSize) {
+            throw new IllegalArgumentException("short frame: " + src.remaining() + " < " + frameSize);
+        }
+        final long seq = sequencer.claim();
+        final int offset = ((int) seq & sequencer.mask) * frameSize;
+        final int from = src.position();
+        for (int b = 0; b < frameSize; b++) {
+            frames.put(offset + b, src.get(from + b));
+        }
+        sequencer.publish(seq);
+    }
+
+    /**
+     * Decode up to {@code limit} published frames in sequence order. Only the
+     * owning consumer thread may call this.
+     *
+     * @return number of frames drained
+     */
+    public int drain(TickDecoder decoder, TickConsumer out, int limit) {
+        final int count = sequencer.available(limit);
+        long seq = sequencer.next;
+        for (int k = 0; k < count; k++, seq++) {
+            decoder.decode(frames, ((int) seq & sequencer.mask) * frameSize, out);
+        }
+        sequencer.release(count);
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return sequencer.isEmpty();
+    }
+}
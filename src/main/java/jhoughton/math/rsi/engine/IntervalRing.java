@@ -0,0 +1,115 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.engine;
+
+/**
+ * Pre-allocated ring of closed intervals, held in primitive columns. Same
+ * sequencing as {@link TickRing}.
+ *
+ * @author jay
+ *
+ */
+public class IntervalRing {
+
+    private final RingSequencer sequencer;
+    private final long[] symbols;
+    private final long[] ends;
+    private final double[] rsi;
+    private final double[] averageUp;
+    private final double[] averageDown;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public IntervalRing(int capacity) {
+        sequencer = new RingSequencer(capacity);
+        final int size = sequencer.capacity();
+        symbols = new long[size];
+        ends = new long[size];
+        rsi = new double[size];
+        averageUp = new double[size];
+        averageDown = new double[size];
+    }
+
+    public int capacity() {
+        return sequencer.capacity();
+    }
+
+    /**
+     * Publish a closed interval, spinning while the ring is full.
+     */
+    public void publish(long symbolId, long end, double rsi, double averageUp, double averageDown) {
+        final long seq = sequencer.claim();
+        final int slot = (int) seq & sequencer.mask;
+        this.symbols[slot] = symbolId;
+        this.ends[slot] = end;
+        this.rsi[slot] = rsi;
+        this.averageUp[slot] = averageUp;
+        this.averageDown[slot] = averageDown;
+        sequencer.publish(seq);
+    }
+
+    /**
+     * Publish a closed interval unless the ring is full, never waits.
+     *
+     * @return false if the ring was full and the interval was not published
+     */
+    public boolean offer(long symbolId, long end, double rsi, double averageUp, double averageDown) {
+        final long seq = sequencer.tryClaim();
+        if (seq < 0) {
+            return false;
+        }
+        final int slot = (int) seq & sequencer.mask;
+        this.symbols[slot] = symbolId;
+        this.ends[slot] = end;
+        this.rsi[slot] = rsi;
+        this.averageUp[slot] = averageUp;
+        this.averageDown[slot] = averageDown;
+        sequencer.publish(seq);
+        return true;
+    }
+
+    /**
+     * Hand up to {@code limit} intervals to the handler as one batch, the last
+     * one flagged with {@code endOfBatch}. Only the owning consumer thread may
+     * call this.
+     *
+     * @return number of intervals drained
+     */
+    public int drain(IntervalBatchHandler handler, int limit) {
+        final int count = sequencer.available(limit);
+        long seq = sequencer.next;
+        for (int k = 0; k < count; k++, seq++) {
+            final int slot = (int) seq & sequencer.mask;
+            handler.onInterval(symbols[slot], ends[slot], rsi[slot], averageUp[slot], averageDown[slot],
+                    k == count - 1);
+        }
+        sequencer.release(count);
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return sequencer.isEmpty();
+    }
+}
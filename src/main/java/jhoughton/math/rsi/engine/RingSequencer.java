@@ -0,0 +1,125 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sequence bookkeeping shared by the pre-allocated rings. Producers claim a
+ * sequence with one atomic increment, wait only while the ring is full, and
+ * publish their slot with a release store. The single consumer checks slots
+ * in order and frees them in batches.
+ *
+ * @author jay
+ *
+ */
+final class RingSequencer {
+
+    private static final VarHandle PUBLISHED = MethodHandles.arrayElementVarHandle(long[].class);
+
+    final int mask;
+    private final long[] published;
+
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+
+    // --- consumer only
+    long next;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    RingSequencer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = size - 1;
+        published = new long[size];
+        for (int i = 0; i < size; i++) {
+            published[i] = -1;
+        }
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return claimed sequence, its slot is free to write
+     */
+    long claim() {
+        final long seq = claimed.getAndIncrement();
+        final long wrap = seq - mask - 1;
+        while (wrap >= consumed) {
+            Thread.onSpinWait();
+        }
+        return seq;
+    }
+
+    /**
+     * @return claimed sequence, or -1 without waiting if the ring is full
+     */
+    long tryClaim() {
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - mask - 1 >= consumed) {
+                return -1;
+            }
+        } while (!claimed.compareAndSet(seq, seq + 1));
+        return seq;
+    }
+
+    void publish(long seq) {
+        PUBLISHED.setRelease(published, (int) seq & mask, seq);
+    }
+
+    /**
+     * @param limit
+     * @return number of consecutive published slots from {@link #next}, up to limit
+     */
+    int available(int limit) {
+        long seq = next;
+        int count = 0;
+        while ((count < limit) && ((long) PUBLISHED.getAcquire(published, (int) seq & mask) == seq)) {
+            seq++;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Free the next {@code count} slots for producers.
+     */
+    void release(int count) {
+        if (count > 0) {
+            next += count;
+            consumed = next;
+        }
+    }
+
+    boolean isEmpty() {
+        return consumed == claimed.get();
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.engine;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongFunction;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.RsiCalculator;
+import jhoughton.math.rsi.TickConsumer;
+
+/**
+ * Three-stage ingestion pipeline connected by pre-allocated rings:
+ * <ol>
+ * <li>a decode thread drains raw frames from a {@link FrameRing} and routes the
+ * decoded ticks,</li>
+ * <li>a {@link ShardedRsiEngine} updates the symbols' calculators, each shard
+ * publishing its closed intervals to its own {@link IntervalRing},</li>
+ * <li>a consumer thread drains the interval rings in batches into the
+ * {@link IntervalBatchHandler}.</li>
+ * </ol>
+ * Every stage drains up to a batch of slots per pass and frees them in one go,
+ * and falls back to the configured {@link WaitStrategy} when idle. Intervals of
+ * one symbol reach the handler in order, intervals of different shards may
+ * interleave.
+ *
+ * @author jay
+ *
+ */
+public class RsiPipeline implements TickConsumer, AutoCloseable {
+
+    private static final int BATCH = 256;
+
+    private final FrameRing frames;
+    private final TickDecoder decoder;
+    private final ShardedRsiEngine engine;
+    private final IntervalRing[] outputs;
+    private final IntervalBatchHandler handler;
+    private final WaitStrategy waitStrategy;
+
+    private final Thread decodeThread;
+    private final Thread consumerThread;
+
+    private volatile boolean decoding;
+    private volatile boolean consuming;
+
+    /**
+     * @param shardCount   calculator threads
+     * @param ringCapacity size of every ring
+     * @param frameSize    bytes per raw frame
+     * @param decoder      turns frames into ticks
+     * @param factory      creates the calculator for a symbol on its first tick
+     * @param handler      receives closed intervals on the consumer thread
+     * @param waitStrategy what an idle stage does
+     */
+    public RsiPipeline(int shardCount, int ringCapacity, int frameSize, TickDecoder decoder,
+            LongFunction<RsiCalculator> factory, IntervalBatchHandler handler, WaitStrategy waitStrategy) {
+        this.frames = new FrameRing(ringCapacity, frameSize);
+        this.decoder = decoder;
+        this.handler = handler;
+        this.waitStrategy = waitStrategy;
+        this.outputs = new IntervalRing[shardCount];
+        for (int s = 0; s < shardCount; s++) {
+            outputs[s] = new IntervalRing(ringCapacity);
+        }
+        this.engine = new ShardedRsiEngine(shardCount, ringCapacity, factory, this::route, waitStrategy);
+        decodeThread = new Thread(this::decode, "rsi-decode");
+        decodeThread.setDaemon(true);
+        consumerThread = new Thread(this::consume, "rsi-consumer");
+        consumerThread.setDaemon(true);
+    }
+
+    /**
+     * {@link TickDecoder#BINARY} frames
+     */
+    public RsiPipeline(int shardCount, int ringCapacity, LongFunction<RsiCalculator> factory,
+            IntervalBatchHandler handler, WaitStrategy waitStrategy) {
+        this(shardCount, ringCapacity, TickDecoder.BINARY_FRAME, TickDecoder.BINARY, factory, handler, waitStrategy);
+    }
+
+    public synchronized void start() {
+        if (decoding) {
+            return;
+        }
+        decoding = true;
+        consuming = true;
+        consumerThread.start();
+        engine.start();
+        decodeThread.start();
+    }
+
+    /**
+     * Queue one raw frame for decoding. Safe to call from any number of threads.
+     *
+     * @param frame at least one frame remaining from its position, which is
+     *              left untouched
+     */
+    public void publish(ByteBuffer frame) {
+        frames.publish(frame);
+    }
+
+    /**
+     * Enter an already decoded tick, bypassing the decode stage.
+     */
+    @Override
+    public void trade(long symbolId, double price, long timestamp) {
+        engine.trade(symbolId, price, timestamp);
+    }
+
+    /**
+     * Stop the stages front to back, each one draining what is still queued
+     * before the next is stopped. An interrupt doesn't cut this short, a stage
+     * must not be stopped while the one before it still feeds it, the interrupt
+     * flag is restored once all stages have exited.
+     */
+    @Override
+    public void close() {
+        decoding = false;
+        boolean interrupted = join(decodeThread);
+        // restores an interrupt itself, take it back until the consumer is done
+        engine.close();
+        interrupted |= Thread.interrupted();
+        consuming = false;
+        interrupted |= join(consumerThread);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return true if interrupted while waiting for the thread to exit
+     */
+    private static boolean join(Thread thread) {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        return interrupted;
+    }
+
+    /**
+     * called on a shard thread, the only producer of its output ring
+     */
+    private void route(long symbolId, long end, Interval interval) {
+        outputs[engine.shardOf(symbolId)].publish(symbolId, end, interval.getRsi(), interval.getAverageUp(),
+                interval.getAverageDown());
+    }
+
+    private void decode() {
+        int idle = 0;
+        while (decoding || !frames.isEmpty()) {
+            if (frames.drain(decoder, engine, BATCH) > 0) {
+                idle = 0;
+            } else {
+                waitStrategy.idle(++idle);
+            }
+        }
+    }
+
+    private void consume() {
+        int idle = 0;
+        while (true) {
+            // read the flag first, a final pass then sees everything the shards published
+            final boolean stopping = !consuming;
+            int drained = 0;
+            for (IntervalRing ring : outputs) {
+                drained += ring.drain(handler, BATCH);
+            }
+            if (drained > 0) {
+                idle = 0;
+            } else if (stopping) {
+                return;
+            } else {
+                waitStrategy.idle(++idle);
+            }
+        }
+    }
+}
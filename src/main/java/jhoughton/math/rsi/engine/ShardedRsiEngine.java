@@ -0,0 +1,250 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.engine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.RsiCalculator;
+import jhoughton.math.rsi.TickConsumer;
+import jhoughton.math.rsi.metrics.RsiMetrics;
+
+/**
+ * Multi-symbol RSI engine. Symbols are partitioned across a fixed number of
+ * shards, each shard is a single worker thread that owns its symbols'
+ * {@link RsiCalculator}s in a {@link SymbolTable}, so a calculator is only ever
+ * touched by one thread and no locks are needed.
+ * <p>
+ * Feed threads call {@link #trade(long, double, long)}, which routes the tick
+ * to the owning shard's {@link TickRing}. Ticks for the same symbol are
+ * processed in the order they were published. Closed intervals are handed to
+ * the {@link IntervalHandler} on the shard thread.
+ *
+ * @author jay
+ *
+ */
+public class ShardedRsiEngine implements TickConsumer, AutoCloseable {
+
+    private static final int DRAIN_LIMIT = 256;
+
+    private final Shard[] shards;
+    private final Thread[] workers;
+
+    private final WaitStrategy waitStrategy;
+
+    private volatile boolean running;
+
+    /**
+     * @param shardCount   number of worker threads
+     * @param ringCapacity per-shard tick buffer size
+     * @param factory      creates the calculator for a symbol on its first tick
+     * @param handler      receives closed intervals
+     */
+    public ShardedRsiEngine(int shardCount, int ringCapacity, LongFunction<RsiCalculator> factory,
+            IntervalHandler handler) {
+        this(shardCount, ringCapacity, factory, handler, WaitStrategy.backoff());
+    }
+
+    /**
+     * @param shardCount   number of worker threads
+     * @param ringCapacity per-shard tick buffer size
+     * @param factory      creates the calculator for a symbol on its first tick
+     * @param handler      receives closed intervals
+     * @param waitStrategy what an idle shard does
+     */
+    public ShardedRsiEngine(int shardCount, int ringCapacity, LongFunction<RsiCalculator> factory,
+            IntervalHandler handler, WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        }
+        shards = new Shard[shardCount];
+        workers = new Thread[shardCount];
+        for (int s = 0; s < shardCount; s++) {
+            shards[s] = new Shard(new TickRing(ringCapacity), factory, handler);
+            workers[s] = new Thread(shards[s], "rsi-shard-" + s);
+            workers[s].setDaemon(true);
+        }
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (Thread worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Give every shard its own {@link RsiMetrics}, shared by the shard's
+     * calculators, and record the per-tick latency of each shard. Call before
+     * {@link #start()}.
+     *
+     * @return the shards' metrics, indexed by shard
+     */
+    public synchronized RsiMetrics[] instrument() {
+        if (running) {
+            throw new IllegalStateException("instrument before start");
+        }
+        final RsiMetrics[] metrics = new RsiMetrics[shards.length];
+        for (int s = 0; s < shards.length; s++) {
+            metrics[s] = new RsiMetrics();
+            shards[s].metrics = metrics[s];
+        }
+        return metrics;
+    }
+
+    /**
+     * @return the shard's metrics, null unless {@link #instrument()} was called
+     */
+    public RsiMetrics getMetrics(int shard) {
+        return shards[shard].metrics;
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @param symbolId
+     * @return index of the shard owning the symbol
+     */
+    public int shardOf(long symbolId) {
+        return (int) Long.remainderUnsigned(SymbolTable.mix(symbolId), shards.length);
+    }
+
+    /**
+     * Route a tick to the shard owning its symbol. Safe to call from any number
+     * of feed threads, blocks (spinning) only while the shard's ring is full. A
+     * tick that is accepted is processed, even if {@link #close()} runs
+     * concurrently.
+     *
+     * @throws IllegalStateException before {@link #start()} or after
+     *                               {@link #close()}, nothing would ever drain
+     *                               the ring
+     */
+    @Override
+    public void trade(long symbolId, double price, long timestamp) {
+        final Shard shard = shards[shardOf(symbolId)];
+        // announce the publish before checking, a worker that saw close()
+        // keeps draining until it is done
+        shard.publishing.incrementAndGet();
+        try {
+            if (!running) {
+                throw new IllegalStateException("engine is not running");
+            }
+            shard.ring.publish(symbolId, price, timestamp);
+        } finally {
+            shard.publishing.decrementAndGet();
+        }
+    }
+
+    /**
+     * Stop accepting work, drain whatever is still queued and wait for the
+     * workers to exit. An interrupt doesn't cut the wait short, so nothing is
+     * still being handed to the {@link IntervalHandler} once this returns, the
+     * interrupt flag is restored afterwards.
+     */
+    @Override
+    public void close() {
+        running = false;
+        boolean interrupted = false;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * single-writer worker, owns its symbols' calculators
+     */
+    final class Shard implements Runnable, TickConsumer {
+
+        private final TickRing ring;
+        /** feed threads between their running check and their publish */
+        private final AtomicInteger publishing = new AtomicInteger();
+        private final SymbolTable<RsiCalculator> calculators = new SymbolTable<>();
+        private final LongFunction<RsiCalculator> factory;
+        private final IntervalHandler handler;
+        private final LongFunction<RsiCalculator> create = this::create;
+
+        // set before the worker starts
+        private RsiMetrics metrics;
+
+        Shard(TickRing ring, LongFunction<RsiCalculator> factory, IntervalHandler handler) {
+            this.ring = ring;
+            this.factory = factory;
+            this.handler = handler;
+        }
+
+        private RsiCalculator create(long symbolId) {
+            final RsiCalculator calculator = factory.apply(symbolId);
+            if (metrics != null) {
+                calculator.setMetrics(metrics);
+            }
+            return calculator;
+        }
+
+        @Override
+        public void trade(long symbolId, double price, long timestamp) {
+            final long start = metrics != null ? System.nanoTime() : 0;
+            final RsiCalculator calculator = calculators.computeIfAbsent(symbolId, create);
+            final long end = calculator.getExpectedEnd();
+            final Interval i = calculator.trade(price, timestamp);
+            if (i != null) {
+                handler.onInterval(symbolId, end, i);
+            }
+            if (metrics != null) {
+                metrics.latency(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            // in this order: once stopped, a publish that isn't counted any
+            // more is in the ring, and one that isn't counted yet will fail
+            while (running || (publishing.get() > 0) || !ring.isEmpty()) {
+                if (ring.drain(this, DRAIN_LIMIT) > 0) {
+                    idle = 0;
+                } else {
+                    waitStrategy.idle(++idle);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.engine;
+
+import java.util.function.LongFunction;
+
+/**
+ * Open-addressing hash table keyed by a primitive {@code long} symbol id. Keys
+ * are never boxed and lookups walk a single {@code long[]} with linear probing,
+ * which keeps per-tick symbol resolution to a couple of cache lines.
+ * <p>
+ * Not thread-safe, each table is meant to be owned by a single writer.
+ *
+ * @author jay
+ *
+ */
+public class SymbolTable<T> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public SymbolTable() {
+        this(MIN_CAPACITY);
+    }
+
+    public SymbolTable(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity * 3 / 4;
+    }
+
+    /**
+     * Spread the bits of a symbol id, sequential ids would otherwise cluster in
+     * neighbouring slots. Also used to pick a shard so both agree on the mixing.
+     *
+     * @param key
+     * @return mixed hash
+     */
+    public static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(long key) {
+        int slot = (int) mix(key) & mask;
+        Object value;
+        while ((value = values[slot]) != null) {
+            if (keys[slot] == key) {
+                return (T) value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * @param key
+     * @param value non-null value
+     * @return the previous value or null
+     */
+    @SuppressWarnings("unchecked")
+    public T put(long key, T value) {
+        if (value == null) {
+            throw new IllegalArgumentException("null values are not supported");
+        }
+        int slot = (int) mix(key) & mask;
+        Object existing;
+        while ((existing = values[slot]) != null) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return (T) existing;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeAt) {
+            rehash();
+        }
+        return null;
+    }
+
+    /**
+     * Fetch the value for a key, creating it with the factory on first sight.
+     *
+     * @param key
+     * @param factory
+     * @return existing or newly created value
+     */
+    @SuppressWarnings("unchecked")
+    public T computeIfAbsent(long key, LongFunction<? extends T> factory) {
+        int slot = (int) mix(key) & mask;
+        Object value;
+        while ((value = values[slot]) != null) {
+            if (keys[slot] == key) {
+                return (T) value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        T created = factory.apply(key);
+        keys[slot] = key;
+        values[slot] = created;
+        if (++size > resizeAt) {
+            rehash();
+        }
+        return created;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(Visitor<? super T> visitor) {
+        for (int slot = 0; slot < values.length; slot++) {
+            Object value = values[slot];
+            if (value != null) {
+                visitor.visit(keys[slot], (T) value);
+            }
+        }
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            Object value = oldValues[i];
+            if (value != null) {
+                int slot = (int) mix(oldKeys[i]) & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = value;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public static interface Visitor<T> {
+        void visit(long key, T value);
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.engine;
+
+import java.nio.ByteBuffer;
+
+import jhoughton.math.rsi.TickConsumer;
+
+/**
+ * Turns one raw frame into ticks. Runs on the pipeline's decode thread, a frame
+ * may yield any number of ticks.
+ *
+ * @author jay
+ *
+ */
+@FunctionalInterface
+public interface TickDecoder {
+
+    /**
+     * Size of a {@link #BINARY} frame.
+     */
+    int BINARY_FRAME = 24;
+
+    /**
+     * timestamp, price, symbol as little-endian long, double, long, the same
+     * record layout as a tick file with symbols
+     */
+    TickDecoder BINARY = (frame, offset, out) -> out.trade(frame.getLong(offset + 16), frame.getDouble(offset + 8),
+            frame.getLong(offset));
+
+    /**
+     * @param frame  little-endian buffer holding the frame, absolute reads only
+     * @param offset where the frame starts
+     * @param out    receives the decoded ticks
+     */
+    void decode(ByteBuffer frame, int offset, TickConsumer out);
+}
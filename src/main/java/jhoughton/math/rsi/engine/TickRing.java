@@ -0,0 +1,101 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.engine;
+
+import jhoughton.math.rsi.TickConsumer;
+
+/**
+ * Pre-allocated multi-producer, single-consumer ring of ticks. Ticks are held
+ * in parallel primitive columns so nothing is allocated per tick.
+ * <p>
+ * Producers claim a sequence with a single atomic increment and publish the
+ * slot with a release store, the consumer drains published slots in order and
+ * frees them in one batch. No locks are taken on either side.
+ *
+ * @author jay
+ *
+ */
+public class TickRing {
+
+    private final RingSequencer sequencer;
+    private final long[] symbols;
+    private final double[] prices;
+    private final long[] timestamps;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public TickRing(int capacity) {
+        sequencer = new RingSequencer(capacity);
+        symbols = new long[sequencer.capacity()];
+        prices = new double[sequencer.capacity()];
+        timestamps = new long[sequencer.capacity()];
+    }
+
+    public int capacity() {
+        return sequencer.capacity();
+    }
+
+    /**
+     * Publish a tick, spinning while the ring is full.
+     *
+     * @param symbolId
+     * @param price
+     * @param timestamp
+     */
+    public void publish(long symbolId, double price, long timestamp) {
+        final long seq = sequencer.claim();
+        final int slot = (int) seq & sequencer.mask;
+        symbols[slot] = symbolId;
+        prices[slot] = price;
+        timestamps[slot] = timestamp;
+        sequencer.publish(seq);
+    }
+
+    /**
+     * Hand up to {@code limit} published ticks to the consumer, in sequence
+     * order. Only the owning consumer thread may call this.
+     *
+     * @param consumer
+     * @param limit
+     * @return number of ticks drained
+     */
+    public int drain(TickConsumer consumer, int limit) {
+        final int count = sequencer.available(limit);
+        long seq = sequencer.next;
+        for (int k = 0; k < count; k++, seq++) {
+            final int slot = (int) seq & sequencer.mask;
+            consumer.trade(symbols[slot], prices[slot], timestamps[slot]);
+        }
+        sequencer.release(count);
+        return count;
+    }
+
+    /**
+     * @return true when every claimed tick has been drained
+     */
+    public boolean isEmpty() {
+        return sequencer.isEmpty();
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.engine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * What a stage thread does when it finds its ring empty. Trades latency for
+ * CPU: busy-spin reacts fastest and burns a core, park is the cheapest but
+ * adds wake-up latency.
+ *
+ * @author jay
+ *
+ */
+@FunctionalInterface
+public interface WaitStrategy {
+
+    /**
+     * @param idleCount consecutive empty polls so far, starting at 1
+     */
+    void idle(int idleCount);
+
+    static WaitStrategy busySpin() {
+        return idleCount -> Thread.onSpinWait();
+    }
+
+    static WaitStrategy yielding() {
+        return idleCount -> {
+            if (idleCount < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        };
+    }
+
+    static WaitStrategy parking(long nanos) {
+        return idleCount -> LockSupport.parkNanos(nanos);
+    }
+
+    /**
+     * spin, then yield, then park for 50us, what the engine uses by default
+     */
+    static WaitStrategy backoff() {
+        final long park = TimeUnit.MICROSECONDS.toNanos(50);
+        return idleCount -> {
+            if (idleCount < 100) {
+                Thread.onSpinWait();
+            } else if (idleCount < 200) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(park);
+            }
+        };
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.flow;
+
+import jhoughton.math.rsi.Interval;
+
+/**
+ * Immutable copy of a closed interval, the element type published by
+ * {@link RsiProcessor}. A copy because the calculators reuse or back-fill
+ * their intervals after handing them out.
+ *
+ * @author jay
+ *
+ */
+public final class RsiEvent {
+
+    private final long symbolId;
+    private final long end;
+    private final double averageUp;
+    private final double averageDown;
+    private final double rs;
+    private final double rsi;
+
+    public RsiEvent(long symbolId, long end, double averageUp, double averageDown, double rs, double rsi) {
+        this.symbolId = symbolId;
+        this.end = end;
+        this.averageUp = averageUp;
+        this.averageDown = averageDown;
+        this.rs = rs;
+        this.rsi = rsi;
+    }
+
+    public RsiEvent(long symbolId, long end, Interval interval) {
+        this(symbolId, end, interval.getAverageUp(), interval.getAverageDown(), interval.getRs(), interval.getRsi());
+    }
+
+    public long getSymbolId() {
+        return symbolId;
+    }
+
+    /**
+     * @return last timestamp covered by the interval
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    public double getAverageUp() {
+        return averageUp;
+    }
+
+    public double getAverageDown() {
+        return averageDown;
+    }
+
+    public double getRs() {
+        return rs;
+    }
+
+    public double getRsi() {
+        return rsi;
+    }
+
+    @Override
+    public String toString() {
+        return "RsiEvent [symbolId=" + symbolId + ", end=" + end + ", rsi=" + rsi + "]";
+    }
+}
@@ -0,0 +1,309 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.flow;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongFunction;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.RsiCalculator;
+import jhoughton.math.rsi.engine.SymbolTable;
+
+/**
+ * {@link Flow.Processor} turning a stream of {@link Tick}s into the
+ * {@link RsiEvent}s of the intervals they close, one calculator per symbol.
+ * <p>
+ * The buffer between the two sides is bounded: upstream is only asked for as
+ * many ticks as there is free room, in batches of half the capacity, and a
+ * tick closes at most one interval. A slow subscriber therefore throttles the
+ * upstream instead of growing memory. With {@code coalesce} set, an interval
+ * for a symbol that still has one waiting replaces it, so a slow subscriber
+ * sees the latest RSI per symbol and the buffer holds at most one event per
+ * symbol.
+ * <p>
+ * Supports a single subscriber. Upstream errors are passed on straight away,
+ * dropping anything buffered, completion only once the buffer is delivered.
+ *
+ * @author jay
+ *
+ */
+public class RsiProcessor implements Flow.Processor<Tick, RsiEvent> {
+
+    private final LongFunction<RsiCalculator> factory;
+    private final SymbolTable<RsiCalculator> calculators = new SymbolTable<>();
+    private final int capacity;
+    private final int batch;
+    private final boolean coalesce;
+
+    // --- buffer, guarded by this
+    private final ArrayDeque<RsiEvent> events = new ArrayDeque<>();
+    private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+    private final SymbolTable<Pending> latest = new SymbolTable<>();
+    private long outstanding;
+    private long coalesced;
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicReference<Flow.Subscriber<? super RsiEvent>> downstream = new AtomicReference<>();
+    private volatile Flow.Subscription upstream;
+    private volatile boolean done;
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+
+    // --- drain loop only
+    private boolean terminated;
+
+    /**
+     * @param factory  creates the calculator for a symbol on its first tick
+     * @param capacity most events held for the subscriber
+     * @param coalesce keep only the latest waiting event per symbol
+     */
+    public RsiProcessor(LongFunction<RsiCalculator> factory, int capacity, boolean coalesce) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.factory = factory;
+        this.capacity = capacity;
+        this.batch = Math.max(1, capacity / 2);
+        this.coalesce = coalesce;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super RsiEvent> subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (!downstream.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {}
+
+                @Override
+                public void cancel() {}
+            });
+            subscriber.onError(new IllegalStateException("RsiProcessor supports a single subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new Downstream());
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if ((upstream != null) || cancelled) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        drain();
+    }
+
+    @Override
+    public void onNext(Tick tick) {
+        final RsiCalculator calculator = calculators.computeIfAbsent(tick.getSymbolId(), factory);
+        final long end = calculator.getExpectedEnd();
+        final Interval i = calculator.trade(tick.getPrice(), tick.getTimestamp());
+        synchronized (this) {
+            outstanding--;
+            if ((i != null) && !cancelled) {
+                offer(new RsiEvent(tick.getSymbolId(), end, i));
+            }
+        }
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        done = true;
+        drain();
+    }
+
+    /**
+     * @return events replaced by a newer one for the same symbol before delivery
+     */
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * @return events waiting for subscriber demand
+     */
+    public synchronized int buffered() {
+        return coalesce ? pending.size() : events.size();
+    }
+
+    private void offer(RsiEvent event) {
+        if (!coalesce) {
+            events.add(event);
+            return;
+        }
+        final Pending p = latest.computeIfAbsent(event.getSymbolId(), id -> new Pending());
+        if (p.event == null) {
+            pending.add(p);
+        } else {
+            coalesced++;
+        }
+        p.event = event;
+    }
+
+    private synchronized RsiEvent poll() {
+        if (!coalesce) {
+            return events.poll();
+        }
+        final Pending p = pending.poll();
+        if (p == null) {
+            return null;
+        }
+        final RsiEvent event = p.event;
+        p.event = null;
+        return event;
+    }
+
+    private synchronized void clear() {
+        events.clear();
+        for (Pending p : pending) {
+            p.event = null;
+        }
+        pending.clear();
+    }
+
+    /**
+     * Ask upstream for whatever fits into the buffer, once at least a batch
+     * fits.
+     */
+    private void replenish() {
+        final Flow.Subscription s = upstream;
+        final long n;
+        synchronized (this) {
+            if ((s == null) || done || cancelled) {
+                return;
+            }
+            final long free = capacity - (coalesce ? pending.size() : events.size()) - outstanding;
+            if (free < batch) {
+                return;
+            }
+            outstanding += free;
+            n = free;
+        }
+        s.request(n);
+    }
+
+    /**
+     * Work-in-progress serialized delivery, whichever thread gets here first
+     * delivers on behalf of the others.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            final Flow.Subscriber<? super RsiEvent> d = downstream.get();
+            if (cancelled) {
+                clear();
+            } else if ((d != null) && !terminated) {
+                final Throwable e = error;
+                if (e != null) {
+                    terminated = true;
+                    clear();
+                    d.onError(e);
+                } else {
+                    final long r = requested.get();
+                    long emitted = 0;
+                    while ((emitted != r) && !cancelled) {
+                        final RsiEvent event = poll();
+                        if (event == null) {
+                            break;
+                        }
+                        d.onNext(event);
+                        emitted++;
+                    }
+                    if ((emitted > 0) && (r != Long.MAX_VALUE)) {
+                        requested.addAndGet(-emitted);
+                    }
+                    if (done && (buffered() == 0) && !cancelled) {
+                        terminated = true;
+                        d.onComplete();
+                    }
+                }
+            }
+            replenish();
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * a symbol's waiting event, only queued once
+     */
+    static final class Pending {
+        RsiEvent event;
+    }
+
+    final class Downstream implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancelUpstream();
+                error = new IllegalArgumentException("non-positive request: " + n);
+                done = true;
+            } else {
+                long r;
+                long u;
+                do {
+                    r = requested.get();
+                    u = r + n;
+                    if (u < 0) {
+                        u = Long.MAX_VALUE;
+                    }
+                } while ((r != Long.MAX_VALUE) && !requested.compareAndSet(r, u));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            cancelUpstream();
+            drain();
+        }
+
+        private void cancelUpstream() {
+            final Flow.Subscription s = upstream;
+            if (s != null) {
+                s.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,401 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.gateway;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channel;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.NetworkChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.TickConsumer;
+import jhoughton.math.rsi.engine.IntervalBatchHandler;
+import jhoughton.math.rsi.engine.IntervalHandler;
+import jhoughton.math.rsi.engine.IntervalRing;
+import jhoughton.math.rsi.engine.ShardedRsiEngine;
+import jhoughton.math.rsi.engine.TickDecoder;
+import jhoughton.math.rsi.engine.WaitStrategy;
+
+/**
+ * Network front end for the calculators. Accepts binary tick frames over TCP
+ * or UDP and hands them to a {@link TickConsumer}, normally a
+ * {@link ShardedRsiEngine} so every symbol has a single writer, and publishes
+ * the closed intervals it is handed as an {@link IntervalHandler} to every
+ * connected subscriber.
+ * <p>
+ * Tick frames are {@link TickDecoder#BINARY} records, 24 bytes little-endian:
+ * timestamp, price, symbol id. Over TCP frames are streamed back to back, over
+ * UDP a datagram carries any number of whole frames. They are decoded straight
+ * from a direct buffer per connection, no objects are created per tick.
+ * <p>
+ * Subscribers connect over TCP and receive 40 byte little-endian interval
+ * frames: symbol id, end, rsi, averageUp, averageDown. Every subscriber has a
+ * bounded {@link IntervalRing} drained onto its socket by its own thread, so
+ * publishing never blocks the shard thread closing the interval. A subscriber
+ * that falls a whole ring behind is disconnected rather than allowed to stall
+ * the engine.
+ * <p>
+ * Every connection is read by its own thread from the {@link ThreadFactory},
+ * so the connection code is plain blocking I/O. On a JDK with virtual threads
+ * pass a virtual thread factory to get one virtual thread per connection.
+ *
+ * @author jay
+ *
+ */
+public class TickGateway implements IntervalHandler, AutoCloseable {
+
+    public static final int FRAME = TickDecoder.BINARY_FRAME;
+    public static final int INTERVAL_FRAME = 40;
+
+    public static final int DEFAULT_SUBSCRIBER_CAPACITY = 1 << 14;
+
+    static final int BUFFER = 1 << 16;
+    private static final int DRAIN_LIMIT = 256;
+
+    public static enum Transport {
+        Tcp, Udp;
+    }
+
+    private final Transport transport;
+    private final InetSocketAddress tickAddress;
+    private final InetSocketAddress subscriberAddress;
+    private final ThreadFactory threads;
+    private final int subscriberCapacity;
+    private final WaitStrategy subscriberWait = WaitStrategy.backoff();
+
+    private final Set<Channel> channels = ConcurrentHashMap.newKeySet();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder slowSubscribers = new LongAdder();
+
+    private volatile boolean running;
+    private NetworkChannel tickChannel;
+    private ServerSocketChannel subscriberChannel;
+    private TickConsumer sink;
+
+    /**
+     * Connections are read by daemon platform threads.
+     */
+    public TickGateway(Transport transport, InetSocketAddress tickAddress, InetSocketAddress subscriberAddress) {
+        this(transport, tickAddress, subscriberAddress, daemonThreads());
+    }
+
+    /**
+     * @param transport         how ticks arrive
+     * @param tickAddress       local address ticks are received on, port 0 picks
+     *                          a free one
+     * @param subscriberAddress local address subscribers connect to
+     * @param threads           creates the accept and connection threads
+     */
+    public TickGateway(Transport transport, InetSocketAddress tickAddress, InetSocketAddress subscriberAddress,
+            ThreadFactory threads) {
+        this(transport, tickAddress, subscriberAddress, threads, DEFAULT_SUBSCRIBER_CAPACITY);
+    }
+
+    /**
+     * @param transport          how ticks arrive
+     * @param tickAddress        local address ticks are received on, port 0
+     *                           picks a free one
+     * @param subscriberAddress  local address subscribers connect to
+     * @param threads            creates the accept, connection and subscriber
+     *                           threads
+     * @param subscriberCapacity intervals queued per subscriber before it is
+     *                           disconnected, rounded up to a power of two
+     */
+    public TickGateway(Transport transport, InetSocketAddress tickAddress, InetSocketAddress subscriberAddress,
+            ThreadFactory threads, int subscriberCapacity) {
+        if (subscriberCapacity < 1) {
+            throw new IllegalArgumentException("subscriberCapacity must be positive: " + subscriberCapacity);
+        }
+        this.transport = transport;
+        this.tickAddress = tickAddress;
+        this.subscriberAddress = subscriberAddress;
+        this.threads = threads;
+        this.subscriberCapacity = subscriberCapacity;
+    }
+
+    private static ThreadFactory daemonThreads() {
+        final AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "rsi-gateway-" + count.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Bind the sockets and start accepting.
+     *
+     * @param sink receives the decoded ticks, from any connection thread
+     */
+    public synchronized void start(TickConsumer sink) throws IOException {
+        if (running) {
+            throw new IllegalStateException("already started");
+        }
+        this.sink = sink;
+        running = true;
+
+        subscriberChannel = register(ServerSocketChannel.open().bind(subscriberAddress));
+        threads.newThread(this::acceptSubscribers).start();
+
+        if (transport == Transport.Tcp) {
+            final ServerSocketChannel server = register(ServerSocketChannel.open().bind(tickAddress));
+            tickChannel = server;
+            threads.newThread(() -> acceptTicks(server)).start();
+        } else {
+            final DatagramChannel datagrams = register(DatagramChannel.open().bind(tickAddress));
+            datagrams.setOption(StandardSocketOptions.SO_RCVBUF, 1 << 22);
+            tickChannel = datagrams;
+            threads.newThread(() -> receive(datagrams)).start();
+        }
+    }
+
+    private <C extends Channel> C register(C channel) {
+        channels.add(channel);
+        return channel;
+    }
+
+    /**
+     * @return bound address ticks are received on
+     */
+    public InetSocketAddress getTickAddress() throws IOException {
+        return (InetSocketAddress) tickChannel.getLocalAddress();
+    }
+
+    /**
+     * @return bound address subscribers connect to
+     */
+    public InetSocketAddress getSubscriberAddress() throws IOException {
+        return (InetSocketAddress) subscriberChannel.getLocalAddress();
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * @return tick frames decoded so far
+     */
+    public long getFrames() {
+        return frames.sum();
+    }
+
+    /**
+     * @return subscribers disconnected for falling a whole queue behind
+     */
+    public long getSlowSubscribers() {
+        return slowSubscribers.sum();
+    }
+
+    private void acceptSubscribers() {
+        try {
+            while (running) {
+                final SocketChannel channel = register(subscriberChannel.accept());
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                final Subscriber subscriber = new Subscriber(channel);
+                subscribers.add(subscriber);
+                threads.newThread(subscriber).start();
+            }
+        } catch (IOException e) {
+            // closed
+        }
+    }
+
+    private void acceptTicks(ServerSocketChannel server) {
+        try {
+            while (running) {
+                final SocketChannel connection = register(server.accept());
+                threads.newThread(() -> read(connection)).start();
+            }
+        } catch (IOException e) {
+            // closed
+        }
+    }
+
+    private void read(SocketChannel connection) {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            while (connection.read(buffer) >= 0) {
+                buffer.flip();
+                decode(buffer);
+                buffer.compact();
+            }
+        } catch (IOException e) {
+            // closed
+        } finally {
+            close(connection);
+        }
+    }
+
+    private void receive(DatagramChannel datagrams) {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            while (running) {
+                buffer.clear();
+                datagrams.receive(buffer);
+                buffer.flip();
+                // a trailing partial frame is dropped with the datagram
+                decode(buffer);
+            }
+        } catch (IOException e) {
+            // closed
+        }
+    }
+
+    /**
+     * decode every whole frame from the buffer's position
+     */
+    private void decode(ByteBuffer buffer) {
+        final TickConsumer sink = this.sink;
+        int position = buffer.position();
+        final int limit = buffer.limit() - FRAME;
+        int count = 0;
+        while (position <= limit) {
+            TickDecoder.BINARY.decode(buffer, position, sink);
+            position += FRAME;
+            count++;
+        }
+        buffer.position(position);
+        frames.add(count);
+    }
+
+    /**
+     * Queue a closed interval for every subscriber. Called on the engine's
+     * shard threads and never blocks, a subscriber whose queue is full is
+     * disconnected.
+     */
+    @Override
+    public void onInterval(long symbolId, long end, Interval interval) {
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.ring.offer(symbolId, end, interval.getRsi(), interval.getAverageUp(),
+                    interval.getAverageDown())) {
+                slowSubscribers.increment();
+                subscriber.disconnect();
+            }
+        }
+    }
+
+    private void close(Channel channel) {
+        channels.remove(channel);
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // nothing left to do
+        }
+    }
+
+    /**
+     * Close every socket, the connection threads exit as their reads fail.
+     */
+    @Override
+    public synchronized void close() {
+        running = false;
+        for (Subscriber subscriber : subscribers) {
+            subscriber.disconnect();
+        }
+        for (Channel channel : channels) {
+            close(channel);
+        }
+    }
+
+    /**
+     * One subscriber's queue, written to its socket by its own thread in
+     * batches of frames.
+     */
+    private final class Subscriber implements IntervalBatchHandler, Runnable {
+
+        final SocketChannel channel;
+        final IntervalRing ring = new IntervalRing(subscriberCapacity);
+        final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        volatile boolean connected = true;
+
+        Subscriber(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void disconnect() {
+            connected = false;
+            if (subscribers.remove(this)) {
+                // unblocks a write stuck on a full socket
+                close(channel);
+            }
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            try {
+                while (connected) {
+                    if (ring.drain(this, DRAIN_LIMIT) > 0) {
+                        idle = 0;
+                    } else {
+                        subscriberWait.idle(++idle);
+                    }
+                }
+            } catch (UncheckedIOException e) {
+                // connection failed
+            } finally {
+                disconnect();
+            }
+        }
+
+        @Override
+        public void onInterval(long symbolId, long end, double rsi, double averageUp, double averageDown,
+                boolean endOfBatch) {
+            if (out.remaining() < INTERVAL_FRAME) {
+                flush();
+            }
+            out.putLong(symbolId).putLong(end).putDouble(rsi).putDouble(averageUp).putDouble(averageDown);
+            if (endOfBatch) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            out.flip();
+            try {
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            out.clear();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.indicator;
+
+/**
+ * EMA with {@code alpha = 2 / (length + 1)}, seeded with the SMA of the first
+ * {@code length} values. O(1) per update, no window kept.
+ *
+ * @author jay
+ *
+ */
+public class ExponentialMovingAverage {
+
+    private final int length;
+    private final double alpha;
+
+    private double value;
+    private int fill;
+
+    public ExponentialMovingAverage(int length) {
+        if (length < 1) {
+            throw new IllegalArgumentException("length must be positive: " + length);
+        }
+        this.length = length;
+        this.alpha = 2.0 / (length + 1);
+    }
+
+    /**
+     * @param x
+     * @return the average, NaN until {@code length} values have been added
+     */
+    public double add(double x) {
+        if (fill < length) {
+            value += x;
+            if (++fill == length) {
+                value /= length;
+            }
+        } else {
+            value += alpha * (x - value);
+        }
+        return value();
+    }
+
+    /**
+     * @return the average, NaN until {@code length} values have been added
+     */
+    public double value() {
+        return fill == length ? value : Double.NaN;
+    }
+
+    public int getLength() {
+        return length;
+    }
+}
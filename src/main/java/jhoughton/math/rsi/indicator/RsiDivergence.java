@@ -0,0 +1,93 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.indicator;
+
+import jhoughton.math.rsi.Interval;
+
+/**
+ * Flags RSI divergence as intervals close: the close breaks below the lowest
+ * close of the previous {@code lookback} intervals while the RSI stays above
+ * the RSI of that low (bullish), or breaks above the highest close while the
+ * RSI stays below the RSI of that high (bearish).
+ * <p>
+ * The lows and highs come from a {@link SlidingMinMax} over the closes and the
+ * RSI at each position from a primitive ring, so an update is amortized O(1).
+ *
+ * @author jay
+ *
+ */
+public class RsiDivergence {
+
+    private final SlidingMinMax closes;
+    private final double[] rsi;
+
+    private Divergence last = Divergence.None;
+
+    public RsiDivergence(int lookback) {
+        closes = new SlidingMinMax(lookback);
+        rsi = new double[lookback];
+    }
+
+    /**
+     * @param close the interval's close
+     * @param rsi   the interval's RSI
+     * @return divergence of this interval against the previous ones
+     */
+    public Divergence update(double close, double rsi) {
+        Divergence divergence = Divergence.None;
+        if (closes.isFull()) {
+            if ((close < closes.min()) && (rsi > rsiAt(closes.minIndex()))) {
+                divergence = Divergence.Bullish;
+            } else if ((close > closes.max()) && (rsi < rsiAt(closes.maxIndex()))) {
+                divergence = Divergence.Bearish;
+            }
+        }
+        this.rsi[(int) (closes.count() % this.rsi.length)] = rsi;
+        closes.add(close);
+        last = divergence;
+        return divergence;
+    }
+
+    /**
+     * Warm-up intervals without an SMMA are skipped.
+     */
+    public Divergence update(Interval interval) {
+        return interval.hasSmma() ? update(interval.getClose(), interval.getRsi()) : Divergence.None;
+    }
+
+    private double rsiAt(long index) {
+        return rsi[(int) (index % rsi.length)];
+    }
+
+    /**
+     * @return result of the last update
+     */
+    public Divergence getLast() {
+        return last;
+    }
+
+    public static enum Divergence {
+        None, Bullish, Bearish;
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.indicator;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.IntervalListener;
+
+/**
+ * EMA signal line over the RSI, its histogram (RSI minus signal) and the
+ * direction of the latest cross. O(1) per update.
+ *
+ * @author jay
+ *
+ */
+public class RsiSignalLine implements IntervalListener {
+
+    private final ExponentialMovingAverage signal;
+
+    private double rsi = Double.NaN;
+    private double histogram = Double.NaN;
+    private int cross;
+
+    public RsiSignalLine(int length) {
+        signal = new ExponentialMovingAverage(length);
+    }
+
+    /**
+     * @param rsi
+     * @return +1 if the RSI crossed above the signal line, -1 if below, else 0
+     */
+    public int update(double rsi) {
+        final double previous = histogram;
+        this.rsi = rsi;
+        histogram = rsi - signal.add(rsi);
+        if ((previous <= 0) && (histogram > 0)) {
+            cross = 1;
+        } else if ((previous >= 0) && (histogram < 0)) {
+            cross = -1;
+        } else {
+            cross = 0;
+        }
+        return cross;
+    }
+
+    public int update(Interval interval) {
+        return interval.hasSmma() ? update(interval.getRsi()) : 0;
+    }
+
+    @Override
+    public void onInterval(long end, double rsi, double averageUp, double averageDown) {
+        if ((averageUp > 0) || (averageDown > 0)) {
+            update(rsi);
+        }
+    }
+
+    public double getRsi() {
+        return rsi;
+    }
+
+    /**
+     * @return signal line, NaN until available
+     */
+    public double getSignal() {
+        return signal.value();
+    }
+
+    /**
+     * @return RSI minus signal, NaN until available
+     */
+    public double getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * @return +1, -1 or 0, see {@link #update(double)}
+     */
+    public int getCross() {
+        return cross;
+    }
+}
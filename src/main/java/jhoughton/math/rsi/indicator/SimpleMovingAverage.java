@@ -0,0 +1,75 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.indicator;
+
+/**
+ * Mean of the last {@code length} values from a primitive ring and a running
+ * sum, O(1) per update.
+ *
+ * @author jay
+ *
+ */
+public class SimpleMovingAverage {
+
+    private final double[] ring;
+    private double sum;
+    private int fill;
+    private int position;
+
+    public SimpleMovingAverage(int length) {
+        if (length < 1) {
+            throw new IllegalArgumentException("length must be positive: " + length);
+        }
+        ring = new double[length];
+    }
+
+    /**
+     * @param value
+     * @return the average, NaN until {@code length} values have been added
+     */
+    public double add(double value) {
+        if (fill == ring.length) {
+            sum -= ring[position];
+        } else {
+            fill++;
+        }
+        sum += value;
+        ring[position] = value;
+        if (++position == ring.length) {
+            position = 0;
+        }
+        return value();
+    }
+
+    /**
+     * @return the average, NaN until {@code length} values have been added
+     */
+    public double value() {
+        return fill == ring.length ? sum / fill : Double.NaN;
+    }
+
+    public int getLength() {
+        return ring.length;
+    }
+}
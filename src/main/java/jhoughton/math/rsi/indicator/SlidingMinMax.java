@@ -0,0 +1,132 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.indicator;
+
+/**
+ * Minimum and maximum of the last {@code window} values, kept with two
+ * monotonic deques in primitive rings. Each value enters and leaves each deque
+ * at most once, so an update is amortized O(1) however long the window.
+ *
+ * @author jay
+ *
+ */
+public class SlidingMinMax {
+
+    private final int window;
+    private final int mask;
+
+    private final long[] minIndex;
+    private final double[] minValue;
+    private long minHead;
+    private long minTail;
+
+    private final long[] maxIndex;
+    private final double[] maxValue;
+    private long maxHead;
+    private long maxTail;
+
+    private long count;
+
+    public SlidingMinMax(int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be positive: " + window);
+        }
+        this.window = window;
+        // room for window + 1 entries, a value is added before the oldest expires
+        final int size = Integer.highestOneBit(window) << 1;
+        mask = size - 1;
+        minIndex = new long[size];
+        minValue = new double[size];
+        maxIndex = new long[size];
+        maxValue = new double[size];
+    }
+
+    public void add(double value) {
+        final long i = count++;
+        final long expired = i - window;
+
+        while ((minTail > minHead) && (minValue[(int) (minTail - 1) & mask] >= value)) {
+            minTail--;
+        }
+        minIndex[(int) minTail & mask] = i;
+        minValue[(int) minTail & mask] = value;
+        minTail++;
+        if (minIndex[(int) minHead & mask] <= expired) {
+            minHead++;
+        }
+
+        while ((maxTail > maxHead) && (maxValue[(int) (maxTail - 1) & mask] <= value)) {
+            maxTail--;
+        }
+        maxIndex[(int) maxTail & mask] = i;
+        maxValue[(int) maxTail & mask] = value;
+        maxTail++;
+        if (maxIndex[(int) maxHead & mask] <= expired) {
+            maxHead++;
+        }
+    }
+
+    /**
+     * @return smallest value in the window, NaN when empty
+     */
+    public double min() {
+        return count == 0 ? Double.NaN : minValue[(int) minHead & mask];
+    }
+
+    /**
+     * @return largest value in the window, NaN when empty
+     */
+    public double max() {
+        return count == 0 ? Double.NaN : maxValue[(int) maxHead & mask];
+    }
+
+    /**
+     * @return position of the smallest value, counting every value added from 0
+     */
+    public long minIndex() {
+        return minIndex[(int) minHead & mask];
+    }
+
+    /**
+     * @return position of the largest value, counting every value added from 0
+     */
+    public long maxIndex() {
+        return maxIndex[(int) maxHead & mask];
+    }
+
+    /**
+     * @return true once {@code window} values have been added
+     */
+    public boolean isFull() {
+        return count >= window;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+}
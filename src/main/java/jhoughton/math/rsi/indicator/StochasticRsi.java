@@ -0,0 +1,118 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.indicator;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.IntervalListener;
+
+/**
+ * Incremental Stochastic RSI: where the latest RSI sits within its range over
+ * the last {@code length} intervals, 0 to 100, with %K and %D smoothing lines.
+ * The range comes from a {@link SlidingMinMax} and the lines are
+ * {@link SimpleMovingAverage}s, so an update is amortized O(1) with a fixed
+ * amount of primitive state.
+ * <p>
+ * Fed with closed intervals, warm-up intervals without an SMMA are skipped. A
+ * flat range gives 0.
+ *
+ * @author jay
+ *
+ */
+public class StochasticRsi implements IntervalListener {
+
+    private final SlidingMinMax range;
+    private final SimpleMovingAverage k;
+    private final SimpleMovingAverage d;
+
+    private double value = Double.NaN;
+
+    /**
+     * the common 14, 3, 3 setup
+     */
+    public StochasticRsi() {
+        this(14, 3, 3);
+    }
+
+    /**
+     * @param length     RSI values the range is taken over
+     * @param kSmoothing length of the %K average of the raw value
+     * @param dSmoothing length of the %D average of %K
+     */
+    public StochasticRsi(int length, int kSmoothing, int dSmoothing) {
+        range = new SlidingMinMax(length);
+        k = new SimpleMovingAverage(kSmoothing);
+        d = new SimpleMovingAverage(dSmoothing);
+    }
+
+    /**
+     * @param rsi
+     * @return raw Stochastic RSI, NaN until {@code length} values were seen
+     */
+    public double update(double rsi) {
+        range.add(rsi);
+        if (!range.isFull()) {
+            return Double.NaN;
+        }
+        final double low = range.min();
+        final double high = range.max();
+        value = high > low ? (100 * (rsi - low)) / (high - low) : 0;
+        final double percentK = k.add(value);
+        if (!Double.isNaN(percentK)) {
+            d.add(percentK);
+        }
+        return value;
+    }
+
+    public double update(Interval interval) {
+        return interval.hasSmma() ? update(interval.getRsi()) : Double.NaN;
+    }
+
+    @Override
+    public void onInterval(long end, double rsi, double averageUp, double averageDown) {
+        if ((averageUp > 0) || (averageDown > 0)) {
+            update(rsi);
+        }
+    }
+
+    /**
+     * @return raw Stochastic RSI of the last update, NaN until available
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * @return %K, NaN until available
+     */
+    public double getK() {
+        return k.value();
+    }
+
+    /**
+     * @return %D, NaN until available
+     */
+    public double getD() {
+        return d.value();
+    }
+}
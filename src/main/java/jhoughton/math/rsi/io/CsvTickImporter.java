@@ -0,0 +1,559 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.RsiCalculator;
+import jhoughton.math.rsi.engine.IntervalHandler;
+import jhoughton.math.rsi.engine.SymbolTable;
+
+/**
+ * Imports {@code timestamp,price[,symbol]} CSV files into per-symbol
+ * {@link RsiCalculator}s.
+ * <p>
+ * A file is read through memory mapped chunks of about {@code chunkSize}
+ * bytes, each extended to the next newline so no line straddles two chunks.
+ * Every round maps one chunk per thread and runs in two phases:
+ * <ol>
+ * <li>the chunks are parsed in parallel, numbers are decoded straight from the
+ * mapped bytes into primitive columns, one set of columns per partition</li>
+ * <li>each partition then walks its columns of every chunk in file order and
+ * trades them into its calculators</li>
+ * </ol>
+ * A symbol belongs to exactly one partition, so its ticks reach its calculator
+ * in file order and a calculator is only ever touched by one thread. Columns
+ * are reused between rounds, nothing is allocated per line.
+ * <p>
+ * Timestamps are integers. Prices are decimals with up to 15 or so significant
+ * digits parsed exactly on a fast path, anything else (exponents, NaN, long
+ * mantissas) falls back to {@link Double#parseDouble(String)}. A symbol is
+ * either a non-negative integer id or up to 8 ASCII bytes packed into a long,
+ * see {@link #symbolId(String)}; a missing symbol is id 0. A first line that
+ * does not start with a number is taken as a header and skipped, blank lines
+ * are ignored and CRLF line ends are accepted. Quoted fields are not supported.
+ * <p>
+ * Closed intervals are handed to the {@link IntervalHandler} on the partition
+ * threads, concurrently for symbols of different partitions. Import files one
+ * at a time, a symbol's calculator carries over from one file to the next. If
+ * an import fails the calculators are left part way through the failing round.
+ *
+ * @author jay
+ *
+ */
+public class CsvTickImporter implements AutoCloseable {
+
+    public static final int DEFAULT_CHUNK_SIZE = 32 << 20;
+    static final int MAX_CHUNK_SIZE = 1 << 30;
+
+    private static final double[] POWERS_OF_TEN = new double[23];
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int PROBE = 4096;
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final int chunkSize;
+    private final Chunk[] chunks;
+    private final Partition[] partitions;
+    private final ExecutorService executor;
+    private final ByteBuffer probe = ByteBuffer.allocate(PROBE);
+
+    private int round;
+    private long ticks;
+
+    /**
+     * @param threads parse threads, also the number of symbol partitions
+     * @param factory creates the calculator for a symbol on its first tick
+     * @param handler receives closed intervals
+     */
+    public CsvTickImporter(int threads, LongFunction<RsiCalculator> factory, IntervalHandler handler) {
+        this(threads, DEFAULT_CHUNK_SIZE, factory, handler);
+    }
+
+    /**
+     * @param threads   parse threads, also the number of symbol partitions
+     * @param chunkSize bytes mapped and parsed per thread and round
+     * @param factory   creates the calculator for a symbol on its first tick
+     * @param handler   receives closed intervals
+     */
+    public CsvTickImporter(int threads, int chunkSize, LongFunction<RsiCalculator> factory,
+            IntervalHandler handler) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        if ((chunkSize < 1) || (chunkSize > MAX_CHUNK_SIZE)) {
+            throw new IllegalArgumentException("chunkSize must be in [1, " + MAX_CHUNK_SIZE + "]: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        chunks = new Chunk[threads];
+        partitions = new Partition[threads];
+        for (int t = 0; t < threads; t++) {
+            chunks[t] = new Chunk(threads);
+            partitions[t] = new Partition(t, factory, handler);
+        }
+        final AtomicInteger created = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "rsi-csv-" + created.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Parse a file and trade every tick into its symbol's calculator.
+     *
+     * @param path CSV file
+     * @return number of ticks imported from the file
+     */
+    public synchronized long importFile(Path path) throws IOException {
+        long imported = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            long position = skipHeader(channel, size);
+            while (position < size) {
+                round = 0;
+                while ((round < chunks.length) && (position < size)) {
+                    final long end = lineEnd(channel, Math.min(size, position + chunkSize), size);
+                    chunks[round].map(channel, position, end);
+                    round++;
+                    position = end;
+                }
+                run(Arrays.asList(chunks).subList(0, round));
+                run(Arrays.asList(partitions));
+                for (int c = 0; c < round; c++) {
+                    imported += chunks[c].ticks;
+                    chunks[c].release();
+                }
+            }
+        }
+        ticks += imported;
+        return imported;
+    }
+
+    /**
+     * @return ticks imported by all files so far
+     */
+    public synchronized long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * @param symbolId
+     * @return the symbol's calculator, null if no tick has been imported for it
+     */
+    public synchronized RsiCalculator getCalculator(long symbolId) {
+        return partitions[partitionOf(symbolId)].calculators.get(symbolId);
+    }
+
+    /**
+     * Visit every symbol's calculator.
+     *
+     * @param visitor
+     */
+    public synchronized void forEach(SymbolTable.Visitor<? super RsiCalculator> visitor) {
+        for (Partition partition : partitions) {
+            partition.calculators.forEach(visitor);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    int partitionOf(long symbolId) {
+        return (int) Long.remainderUnsigned(SymbolTable.mix(symbolId), partitions.length);
+    }
+
+    /**
+     * The id a symbol column value is imported as: a non-negative integer is
+     * its own id, anything else is up to 8 ASCII characters packed big-endian
+     * into the low bytes of a long. Packed names can coincide with numeric ids,
+     * don't mix both styles in one import.
+     *
+     * @param symbol
+     * @return symbol id
+     */
+    public static long symbolId(String symbol) {
+        final byte[] bytes = symbol.getBytes(StandardCharsets.US_ASCII);
+        return parseSymbol(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    private void run(List<? extends Callable<Void>> tasks) throws IOException {
+        final List<Future<Void>> futures;
+        try {
+            futures = executor.invokeAll(tasks);
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("import interrupted");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private long skipHeader(FileChannel channel, long size) throws IOException {
+        if (size == 0) {
+            return 0;
+        }
+        probe.clear().limit(1);
+        channel.read(probe, 0);
+        final byte first = probe.get(0);
+        if (isDigit(first) || (first == '-') || (first == '+') || (first == '\n') || (first == '\r')) {
+            return 0;
+        }
+        return lineEnd(channel, 1, size);
+    }
+
+    /**
+     * @return offset just past the first newline at or after {@code from - 1},
+     *         or the file size
+     */
+    private long lineEnd(FileChannel channel, long from, long size) throws IOException {
+        long position = from - 1;
+        while (position < size) {
+            probe.clear();
+            final int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static boolean isDigit(byte b) {
+        return (b >= '0') && (b <= '9');
+    }
+
+    private static boolean isLineEnd(byte b) {
+        return (b == '\n') || (b == '\r');
+    }
+
+    /**
+     * Parse an optionally signed decimal integer.
+     *
+     * @throws NumberFormatException if the field is empty, not an integer or
+     *                               overflows a long
+     */
+    static long parseLong(ByteBuffer buffer, int from, int to) {
+        int p = from;
+        final boolean negative = (p < to) && (buffer.get(p) == '-');
+        if (negative || ((p < to) && (buffer.get(p) == '+'))) {
+            p++;
+        }
+        if (p == to) {
+            throw new NumberFormatException("empty number");
+        }
+        // accumulate negatively so Long.MIN_VALUE parses too
+        long value = 0;
+        for (; p < to; p++) {
+            final int digit = buffer.get(p) - '0';
+            if ((digit < 0) || (digit > 9)) {
+                throw new NumberFormatException("not an integer");
+            }
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                throw new NumberFormatException("integer overflow");
+            }
+            value = value * 10 - digit;
+        }
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                throw new NumberFormatException("integer overflow");
+            }
+            return -value;
+        }
+        return value;
+    }
+
+    /**
+     * Parse a decimal price. Plain decimals whose digits fit 53 bits and that
+     * have at most 22 fraction digits are one exact division of two exactly
+     * representable doubles, so correctly rounded. Everything else goes through
+     * {@link Double#parseDouble(String)}.
+     *
+     * @throws NumberFormatException if the field is not a number
+     */
+    static double parseDouble(ByteBuffer buffer, int from, int to) {
+        int p = from;
+        final boolean negative = (p < to) && (buffer.get(p) == '-');
+        if (negative || ((p < to) && (buffer.get(p) == '+'))) {
+            p++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; p < to; p++) {
+            final byte b = buffer.get(p);
+            if (isDigit(b)) {
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa > MAX_EXACT_MANTISSA) {
+                    return parseDoubleSlow(buffer, from, to);
+                }
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if ((b == '.') && (scale < 0)) {
+                scale = 0;
+            } else {
+                return parseDoubleSlow(buffer, from, to);
+            }
+        }
+        if ((digits == 0) || (scale >= POWERS_OF_TEN.length)) {
+            return parseDoubleSlow(buffer, from, to);
+        }
+        final double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private static double parseDoubleSlow(ByteBuffer buffer, int from, int to) {
+        final byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(from + i);
+        }
+        return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @see #symbolId(String)
+     * @throws NumberFormatException if a name is longer than 8 bytes or not
+     *                               ASCII
+     */
+    static long parseSymbol(ByteBuffer buffer, int from, int to) {
+        if (from == to) {
+            return 0;
+        }
+        boolean numeric = true;
+        for (int p = from; numeric && (p < to); p++) {
+            numeric = isDigit(buffer.get(p));
+        }
+        if (numeric) {
+            return parseLong(buffer, from, to);
+        }
+        if (to - from > Long.BYTES) {
+            throw new NumberFormatException("symbol longer than 8 bytes");
+        }
+        long packed = 0;
+        for (int p = from; p < to; p++) {
+            final byte b = buffer.get(p);
+            if (b < 0) {
+                throw new NumberFormatException("symbol is not ASCII");
+            }
+            packed = (packed << 8) | b;
+        }
+        return packed;
+    }
+
+    /**
+     * Primitive tick columns of one chunk for one partition, grown on demand and
+     * reused across rounds.
+     */
+    private static class Columns {
+
+        long[] timestamps = new long[1024];
+        double[] prices = new double[1024];
+        long[] symbols = new long[1024];
+        int size;
+
+        void add(long timestamp, double price, long symbolId) {
+            if (size == timestamps.length) {
+                final int capacity = size << 1;
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                symbols = Arrays.copyOf(symbols, capacity);
+            }
+            timestamps[size] = timestamp;
+            prices[size] = price;
+            symbols[size] = symbolId;
+            size++;
+        }
+    }
+
+    /**
+     * One mapped chunk of lines, parsed into per-partition columns.
+     */
+    private class Chunk implements Callable<Void> {
+
+        final Columns[] columns;
+        MappedByteBuffer buffer;
+        long offset;
+        long ticks;
+
+        Chunk(int partitionCount) {
+            columns = new Columns[partitionCount];
+            for (int p = 0; p < partitionCount; p++) {
+                columns[p] = new Columns();
+            }
+        }
+
+        void map(FileChannel channel, long from, long to) throws IOException {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+            offset = from;
+        }
+
+        void release() {
+            buffer = null;
+        }
+
+        @Override
+        public Void call() throws IOException {
+            for (Columns c : columns) {
+                c.size = 0;
+            }
+            ticks = 0;
+            final ByteBuffer in = buffer;
+            final int limit = in.limit();
+            int line = 0;
+            while (line < limit) {
+                if (isLineEnd(in.get(line))) {
+                    line++;
+                    continue;
+                }
+                int p = line;
+                try {
+                    int end = fieldEnd(in, p, limit);
+                    if ((end == limit) || (in.get(end) != ',')) {
+                        throw new NumberFormatException("missing price");
+                    }
+                    final long timestamp = parseLong(in, p, end);
+                    p = end + 1;
+                    end = fieldEnd(in, p, limit);
+                    final double price = parseDouble(in, p, end);
+                    long symbolId = 0;
+                    if ((end < limit) && (in.get(end) == ',')) {
+                        p = end + 1;
+                        end = fieldEnd(in, p, limit);
+                        symbolId = parseSymbol(in, p, end);
+                        if ((end < limit) && (in.get(end) == ',')) {
+                            throw new NumberFormatException("too many fields");
+                        }
+                    }
+                    columns[partitionOf(symbolId)].add(timestamp, price, symbolId);
+                    ticks++;
+                    p = end;
+                } catch (NumberFormatException e) {
+                    throw new IOException("malformed tick at byte " + (offset + p) + ": " + e.getMessage(), e);
+                }
+                while ((p < limit) && (in.get(p) != '\n')) {
+                    if (in.get(p) != '\r') {
+                        throw new IOException("malformed tick at byte " + (offset + p) + ": trailing data");
+                    }
+                    p++;
+                }
+                line = p + 1;
+            }
+            return null;
+        }
+
+        private int fieldEnd(ByteBuffer in, int from, int limit) {
+            int p = from;
+            while (p < limit) {
+                final byte b = in.get(p);
+                if ((b == ',') || isLineEnd(b)) {
+                    break;
+                }
+                p++;
+            }
+            return p;
+        }
+    }
+
+    /**
+     * The calculators of one partition's symbols, fed from every chunk of a
+     * round in file order.
+     */
+    private class Partition implements Callable<Void> {
+
+        final int index;
+        final LongFunction<RsiCalculator> factory;
+        final IntervalHandler handler;
+        final SymbolTable<RsiCalculator> calculators = new SymbolTable<>();
+
+        Partition(int index, LongFunction<RsiCalculator> factory, IntervalHandler handler) {
+            this.index = index;
+            this.factory = factory;
+            this.handler = handler;
+        }
+
+        @Override
+        public Void call() {
+            long lastSymbol = 0;
+            RsiCalculator calculator = null;
+            for (int c = 0; c < round; c++) {
+                final Columns columns = chunks[c].columns[index];
+                for (int k = 0; k < columns.size; k++) {
+                    final long symbolId = columns.symbols[k];
+                    if ((calculator == null) || (symbolId != lastSymbol)) {
+                        calculator = calculators.computeIfAbsent(symbolId, factory);
+                        lastSymbol = symbolId;
+                    }
+                    final long end = calculator.getExpectedEnd();
+                    final Interval i = calculator.trade(columns.prices[k], columns.timestamps[k]);
+                    if (i != null) {
+                        handler.onInterval(symbolId, end, i);
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.IntervalListener;
+
+/**
+ * Persists closed intervals in a fixed-stride binary format, read back by
+ * {@link IntervalFileReader}.
+ *
+ * <pre>
+ * long   end
+ * double averageUp
+ * double averageDown
+ * double rs
+ * double rsi
+ * long   symbolId   only when written with symbols
+ * </pre>
+ *
+ * @author jay
+ *
+ */
+public class IntervalFileWriter implements IntervalListener, Closeable {
+
+    static final int MAGIC = 0x52534949; // RSII
+    static final int STRIDE = 40;
+    static final int SYMBOL_STRIDE = 48;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final boolean withSymbol;
+
+    public IntervalFileWriter(Path path, boolean withSymbol) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.withSymbol = withSymbol;
+        this.buffer = ByteBuffer.allocateDirect(RecordFile.WRITE_BUFFER).order(RecordFile.ORDER);
+        RecordFile.writeFully(channel, RecordFile.header(MAGIC, withSymbol, withSymbol ? SYMBOL_STRIDE : STRIDE));
+    }
+
+    public void write(long end, Interval interval) throws IOException {
+        write(0, end, interval.getAverageUp(), interval.getAverageDown(), interval.getRs(), interval.getRsi());
+    }
+
+    public void write(long symbolId, long end, Interval interval) throws IOException {
+        write(symbolId, end, interval.getAverageUp(), interval.getAverageDown(), interval.getRs(), interval.getRsi());
+    }
+
+    public void write(long symbolId, long end, double averageUp, double averageDown, double rs, double rsi)
+            throws IOException {
+        if (buffer.remaining() < SYMBOL_STRIDE) {
+            flush();
+        }
+        buffer.putLong(end).putDouble(averageUp).putDouble(averageDown).putDouble(rs).putDouble(rsi);
+        if (withSymbol) {
+            buffer.putLong(symbolId);
+        }
+    }
+
+    /**
+     * {@link IntervalListener} view, rs is derived from the averages
+     */
+    @Override
+    public void onInterval(long end, double rsi, double averageUp, double averageDown) {
+        try {
+            write(0, end, averageUp, averageDown, averageUp / averageDown, rsi);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        RecordFile.writeFully(channel, buffer);
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Layout shared by the fixed-stride binary files: a 16 byte little-endian
+ * header followed by records of {@code stride} bytes.
+ *
+ * <pre>
+ * int   magic
+ * short version
+ * short flags    bit 0: records carry a symbol id
+ * int   stride
+ * int   reserved
+ * </pre>
+ *
+ * @author jay
+ *
+ */
+final class RecordFile {
+
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    static final int HEADER = 16;
+    static final short VERSION = 1;
+    static final short FLAG_SYMBOL = 1;
+
+    /**
+     * largest region mapped at once, keeps multi-GB files under the 2GB limit
+     * of a single {@link java.nio.MappedByteBuffer}
+     */
+    static final int WINDOW = 1 << 30;
+
+    static final int WRITE_BUFFER = 1 << 16;
+
+    private RecordFile() {}
+
+    static ByteBuffer header(int magic, boolean withSymbol, int stride) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER).order(ORDER);
+        header.putInt(magic).putShort(VERSION).putShort(withSymbol ? FLAG_SYMBOL : 0).putInt(stride).putInt(0);
+        header.flip();
+        return header;
+    }
+
+    /**
+     * Read and validate the header.
+     *
+     * @return flags
+     */
+    static short readHeader(FileChannel channel, int magic, int stride, int symbolStride) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER).order(ORDER);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("truncated header");
+            }
+        }
+        header.flip();
+        return readHeader(header, magic, stride, symbolStride);
+    }
+
+    /**
+     * Validate the header at the buffer's position and move past it.
+     *
+     * @return flags
+     */
+    static short readHeader(ByteBuffer header, int magic, int stride, int symbolStride) throws IOException {
+        if (header.remaining() < HEADER) {
+            throw new IOException("truncated header");
+        }
+        if (header.getInt() != magic) {
+            throw new IOException("not a " + Integer.toHexString(magic) + " file");
+        }
+        short version = header.getShort();
+        if (version != VERSION) {
+            throw new IOException("unsupported version " + version);
+        }
+        short flags = header.getShort();
+        int actual = header.getInt();
+        int expected = (flags & FLAG_SYMBOL) != 0 ? symbolStride : stride;
+        if (actual != expected) {
+            throw new IOException("unexpected stride " + actual + ", expected " + expected);
+        }
+        header.getInt(); // reserved
+        return flags;
+    }
+
+    static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
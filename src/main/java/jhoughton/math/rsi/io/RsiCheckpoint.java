@@ -0,0 +1,135 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongFunction;
+
+import jhoughton.math.rsi.Checkpointable;
+import jhoughton.math.rsi.engine.SymbolTable;
+
+/**
+ * Bulk binary checkpoint of many calculators, written with a single channel
+ * write and restored from a single mapping so a warm start does not have to
+ * replay ticks.
+ *
+ * <pre>
+ * header   see RecordFile, stride 0
+ * int      count
+ * count x  long symbolId, int size, size bytes of calculator state
+ * </pre>
+ *
+ * @author jay
+ *
+ */
+public final class RsiCheckpoint {
+
+    static final int MAGIC = 0x52534943; // RSIC
+
+    private RsiCheckpoint() {}
+
+    /**
+     * @return bytes written
+     */
+    public static <T extends Checkpointable> long save(Path path, SymbolTable<T> calculators) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return save(channel, calculators);
+        }
+    }
+
+    /**
+     * @return bytes written
+     */
+    public static <T extends Checkpointable> long save(WritableByteChannel channel, SymbolTable<T> calculators)
+            throws IOException {
+        long[] total = { RecordFile.HEADER + 4 };
+        calculators.forEach((symbolId, calculator) -> total[0] += 8 + 4 + calculator.checkpointSize());
+        if (total[0] > Integer.MAX_VALUE) {
+            throw new IOException("checkpoint of " + total[0] + " bytes exceeds a single buffer");
+        }
+
+        ByteBuffer out = ByteBuffer.allocateDirect((int) total[0]).order(RecordFile.ORDER);
+        out.put(RecordFile.header(MAGIC, false, 0));
+        out.putInt(calculators.size());
+        calculators.forEach((symbolId, calculator) -> {
+            int size = calculator.checkpointSize();
+            out.putLong(symbolId).putInt(size);
+            int start = out.position();
+            calculator.checkpoint(out);
+            if (out.position() - start != size) {
+                throw new IllegalStateException(calculator.getClass().getName() + " wrote "
+                        + (out.position() - start) + " bytes, expected " + size);
+            }
+        });
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        return total[0];
+    }
+
+    /**
+     * @return number of calculators restored
+     */
+    public static <T extends Checkpointable> int load(Path path, SymbolTable<T> calculators,
+            LongFunction<? extends T> factory) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            RecordFile.readHeader(channel, MAGIC, 0, 0);
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, RecordFile.HEADER,
+                    channel.size() - RecordFile.HEADER);
+            in.order(RecordFile.ORDER);
+            return load(in, calculators, factory);
+        }
+    }
+
+    /**
+     * Restore every calculator into the table, creating missing ones with the
+     * factory, which must configure them the same way as the saved ones.
+     *
+     * @param in positioned just after the header
+     * @return number of calculators restored
+     */
+    public static <T extends Checkpointable> int load(ByteBuffer in, SymbolTable<T> calculators,
+            LongFunction<? extends T> factory) {
+        final int count = in.getInt();
+        for (int j = 0; j < count; j++) {
+            final long symbolId = in.getLong();
+            final int size = in.getInt();
+            final int start = in.position();
+            calculators.computeIfAbsent(symbolId, factory).restore(in);
+            if (in.position() - start != size) {
+                throw new IllegalArgumentException("symbol " + symbolId + " read " + (in.position() - start)
+                        + " bytes, checkpoint holds " + size);
+            }
+        }
+        return count;
+    }
+}
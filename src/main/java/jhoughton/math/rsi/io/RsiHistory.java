@@ -0,0 +1,500 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.IntervalListener;
+import jhoughton.math.rsi.engine.IntervalHandler;
+import jhoughton.math.rsi.engine.SymbolTable;
+
+/**
+ * Persisted RSI history: closed intervals are appended per symbol to columnar
+ * segment files and read back by time range.
+ * <p>
+ * Every symbol has a directory of numbered segments of up to
+ * {@code segmentCapacity} intervals. A segment is one file, read with a single
+ * positional read, holding a column per value:
+ *
+ * <pre>
+ * 16 byte record file header, magic RSIH, stride 32
+ * int    count
+ * int    capacity
+ * long   first end
+ * long   last end
+ * long   end[capacity]
+ * double averageUp[capacity]
+ * double averageDown[capacity]
+ * double rsi[capacity]
+ * </pre>
+ *
+ * The first and last ends of every segment form a sparse time index, so a
+ * range query binary-searches to its first segment and only reads the
+ * segments it overlaps. The index is persisted next to the segments and grows
+ * by one record whenever a segment fills up:
+ *
+ * <pre>
+ * 16 byte record file header, magic RSIX, stride 16
+ * long   first end
+ * long   last end     per full segment, in segment order
+ * </pre>
+ *
+ * so the first access to a symbol reads its index in one read plus the header
+ * of the segment still being appended to, never the directory or the other
+ * segments. Decoded segments, including the ones being appended to, share one
+ * LRU cache of {@code cachedSegments}, so repeated queries are memory reads and
+ * memory stays bounded however many symbols are written or queried. An evicted
+ * segment with unwritten intervals is written first.
+ * <p>
+ * Ends must increase per symbol. Thread-safe, all methods lock the history.
+ *
+ * @author jay
+ *
+ */
+public class RsiHistory implements IntervalHandler, Closeable {
+
+    static final int MAGIC = 0x52534948; // RSIH
+    static final int STRIDE = 32;
+    static final int SEGMENT_HEADER = RecordFile.HEADER + 24;
+    static final int INDEX_MAGIC = 0x52534958; // RSIX
+    static final int INDEX_STRIDE = 16;
+    static final String INDEX = "segments.idx";
+
+    private final Path root;
+    private final int segmentCapacity;
+    private final int cachedSegments;
+    private final Map<SegmentKey, Segment> cache;
+    private final SymbolTable<Series> symbols = new SymbolTable<>();
+
+    private long reads;
+
+    /**
+     * @param root            directory holding one sub-directory per symbol
+     * @param segmentCapacity intervals per segment file
+     * @param cachedSegments  most decoded segments kept in memory
+     */
+    public RsiHistory(Path root, int segmentCapacity, int cachedSegments) throws IOException {
+        if (segmentCapacity < 1) {
+            throw new IllegalArgumentException("segmentCapacity must be positive: " + segmentCapacity);
+        }
+        if (cachedSegments < 1) {
+            throw new IllegalArgumentException("cachedSegments must be positive: " + cachedSegments);
+        }
+        this.root = Files.createDirectories(root);
+        this.segmentCapacity = segmentCapacity;
+        this.cachedSegments = cachedSegments;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Append a closed interval. The segment is written once full, when evicted
+     * from the cache, or on {@link #flush()}.
+     */
+    public synchronized void append(long symbolId, long end, double averageUp, double averageDown, double rsi)
+            throws IOException {
+        final Series series = series(symbolId);
+        final int last = series.segments - 1;
+        if ((last >= 0) && (end <= series.lastEnds[last])) {
+            throw new IllegalArgumentException(
+                    "end " + end + " does not follow " + series.lastEnds[last] + " for symbol " + symbolId);
+        }
+        Segment tail = null;
+        if (series.segments > series.sealed) {
+            tail = segment(symbolId, series, last);
+            // a segment written with another capacity fills up to its own
+            if (tail.count >= tail.ends.length) {
+                if (tail.dirty) {
+                    write(series, last, tail);
+                }
+                seal(series, last);
+                series.sealed++;
+                tail = null;
+            }
+        }
+        if (tail == null) {
+            tail = new Segment(segmentCapacity);
+            series.add(end, end);
+            cache(new SegmentKey(symbolId, series.segments - 1), tail);
+        }
+        final int k = tail.count++;
+        tail.ends[k] = end;
+        tail.averageUp[k] = averageUp;
+        tail.averageDown[k] = averageDown;
+        tail.rsi[k] = rsi;
+        tail.dirty = true;
+        series.lastEnds[series.segments - 1] = end;
+    }
+
+    @Override
+    public void onInterval(long symbolId, long end, Interval interval) {
+        try {
+            append(symbolId, end, interval.getAverageUp(), interval.getAverageDown(), interval.getRsi());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return listener appending one symbol's closes
+     */
+    public IntervalListener listener(long symbolId) {
+        return (end, rsi, averageUp, averageDown) -> {
+            try {
+                append(symbolId, end, averageUp, averageDown, rsi);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * Report every interval of a symbol with {@code from <= end <= to}, in end
+     * order.
+     *
+     * @return number of intervals reported
+     */
+    public synchronized int query(long symbolId, long from, long to, IntervalListener listener) throws IOException {
+        final Series series = existing(symbolId);
+        if (series == null) {
+            return 0;
+        }
+        // first segment that could hold `from`
+        int s = Arrays.binarySearch(series.lastEnds, 0, series.segments, from);
+        if (s < 0) {
+            s = -s - 1;
+        }
+        int reported = 0;
+        for (; (s < series.segments) && (series.firstEnds[s] <= to); s++) {
+            final Segment segment = segment(symbolId, series, s);
+            int k = Arrays.binarySearch(segment.ends, 0, segment.count, from);
+            if (k < 0) {
+                k = -k - 1;
+            }
+            for (; (k < segment.count) && (segment.ends[k] <= to); k++) {
+                listener.onInterval(segment.ends[k], segment.rsi[k], segment.averageUp[k], segment.averageDown[k]);
+                reported++;
+            }
+        }
+        return reported;
+    }
+
+    /**
+     * Write every cached segment with unwritten intervals.
+     */
+    public synchronized void flush() throws IOException {
+        for (Map.Entry<SegmentKey, Segment> entry : cache.entrySet()) {
+            if (entry.getValue().dirty) {
+                final SegmentKey key = entry.getKey();
+                write(symbols.get(key.symbolId), key.segment, entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * @return segment files read so far, cache misses
+     */
+    public synchronized long getSegmentReads() {
+        return reads;
+    }
+
+    /**
+     * For unit testing
+     *
+     * @return symbols with a series in memory
+     */
+    synchronized int loadedSymbols() {
+        return symbols.size();
+    }
+
+    /**
+     * For unit testing
+     *
+     * @return decoded segments in memory
+     */
+    synchronized int residentSegments() {
+        return cache.size();
+    }
+
+    private Series series(long symbolId) throws IOException {
+        Series series = symbols.get(symbolId);
+        if (series == null) {
+            series = open(symbolId);
+            symbols.put(symbolId, series);
+        }
+        return series;
+    }
+
+    /**
+     * @return the symbol's series, null without caching anything if it has no
+     *         history
+     */
+    private Series existing(long symbolId) throws IOException {
+        Series series = symbols.get(symbolId);
+        if (series == null) {
+            series = open(symbolId);
+            if (series.segments == 0) {
+                return null;
+            }
+            symbols.put(symbolId, series);
+        }
+        return series;
+    }
+
+    private Path directory(long symbolId) {
+        return root.resolve(Long.toString(symbolId));
+    }
+
+    private static Path file(Path directory, int segment) {
+        return directory.resolve(String.format("%08d.seg", segment));
+    }
+
+    /**
+     * load the sparse index of the full segments, the segment after them, if
+     * any, is the one being appended to and only its header is read
+     */
+    private Series open(long symbolId) throws IOException {
+        final Series series = new Series(directory(symbolId));
+        final Path index = series.directory.resolve(INDEX);
+        if (Files.exists(index)) {
+            try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+                final long size = channel.size();
+                if (size < RecordFile.HEADER) {
+                    throw new IOException("truncated index " + index);
+                }
+                final ByteBuffer buffer = ByteBuffer.allocate((int) size).order(RecordFile.ORDER);
+                readFully(channel, buffer);
+                RecordFile.readHeader(buffer, INDEX_MAGIC, INDEX_STRIDE, INDEX_STRIDE);
+                // a torn last record is ignored, its segment is still the tail
+                for (int r = buffer.remaining() / INDEX_STRIDE; r > 0; r--) {
+                    series.add(buffer.getLong(), buffer.getLong());
+                }
+            }
+        }
+        series.sealed = series.segments;
+        final Path tail = file(series.directory, series.segments);
+        if (Files.exists(tail)) {
+            // full but not yet in the index if we stopped between the two writes
+            try (FileChannel channel = FileChannel.open(tail, StandardOpenOption.READ)) {
+                final ByteBuffer buffer = ByteBuffer.allocate(SEGMENT_HEADER).order(RecordFile.ORDER);
+                readFully(channel, buffer);
+                RecordFile.readHeader(buffer, MAGIC, STRIDE, STRIDE);
+                buffer.getInt();
+                buffer.getInt();
+                series.add(buffer.getLong(), buffer.getLong());
+            }
+        }
+        return series;
+    }
+
+    /**
+     * record a full segment in the symbol's index
+     */
+    private void seal(Series series, int s) throws IOException {
+        final Path index = series.directory.resolve(INDEX);
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            final long size = channel.size();
+            final long expected = RecordFile.HEADER + ((long) s * INDEX_STRIDE);
+            if (size == 0) {
+                RecordFile.writeFully(channel, RecordFile.header(INDEX_MAGIC, false, INDEX_STRIDE));
+            } else if (size < expected) {
+                throw new IOException("index " + index + " is missing segments before " + s);
+            }
+            // overwrite a torn record left by an interrupted seal
+            channel.position(expected);
+            final ByteBuffer record = ByteBuffer.allocate(INDEX_STRIDE).order(RecordFile.ORDER);
+            record.putLong(series.firstEnds[s]).putLong(series.lastEnds[s]).flip();
+            RecordFile.writeFully(channel, record);
+            channel.truncate(expected + INDEX_STRIDE);
+        }
+    }
+
+    private Segment segment(long symbolId, Series series, int s) throws IOException {
+        final SegmentKey key = new SegmentKey(symbolId, s);
+        Segment segment = cache.get(key);
+        if (segment == null) {
+            segment = read(series, s);
+            cache(key, segment);
+        }
+        return segment;
+    }
+
+    /**
+     * cache a segment, evicting the least recently used ones over the bound
+     */
+    private void cache(SegmentKey key, Segment segment) throws IOException {
+        cache.put(key, segment);
+        final Iterator<Map.Entry<SegmentKey, Segment>> eldest = cache.entrySet().iterator();
+        while (cache.size() > cachedSegments) {
+            final Map.Entry<SegmentKey, Segment> entry = eldest.next();
+            if (entry.getValue().dirty) {
+                write(symbols.get(entry.getKey().symbolId), entry.getKey().segment, entry.getValue());
+            }
+            eldest.remove();
+        }
+    }
+
+    private Segment read(Series series, int s) throws IOException {
+        reads++;
+        try (FileChannel channel = FileChannel.open(file(series.directory, s), StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate((int) channel.size()).order(RecordFile.ORDER);
+            readFully(channel, buffer);
+            RecordFile.readHeader(buffer, MAGIC, STRIDE, STRIDE);
+            final int count = buffer.getInt();
+            final int capacity = buffer.getInt();
+            if ((count < 1) || (count > capacity) || (buffer.limit() < (SEGMENT_HEADER + ((long) capacity * STRIDE)))) {
+                throw new IOException("corrupt segment " + file(series.directory, s));
+            }
+            // keeps its own capacity, whatever this history was opened with
+            final Segment segment = new Segment(capacity);
+            segment.count = count;
+            final int columns = SEGMENT_HEADER;
+            buffer.position(columns);
+            buffer.asLongBuffer().get(segment.ends, 0, count);
+            buffer.position(columns + (capacity * 8));
+            buffer.asDoubleBuffer().get(segment.averageUp, 0, count);
+            buffer.position(columns + (capacity * 16));
+            buffer.asDoubleBuffer().get(segment.averageDown, 0, count);
+            buffer.position(columns + (capacity * 24));
+            buffer.asDoubleBuffer().get(segment.rsi, 0, count);
+            return segment;
+        }
+    }
+
+    private void write(Series series, int s, Segment segment) throws IOException {
+        Files.createDirectories(series.directory);
+        final int capacity = segment.ends.length;
+        final ByteBuffer buffer = ByteBuffer.allocate(SEGMENT_HEADER + (capacity * STRIDE)).order(RecordFile.ORDER);
+        buffer.put(RecordFile.header(MAGIC, false, STRIDE));
+        buffer.putInt(segment.count).putInt(capacity).putLong(series.firstEnds[s]).putLong(series.lastEnds[s]);
+        buffer.asLongBuffer().put(segment.ends, 0, segment.count);
+        buffer.position(SEGMENT_HEADER + (capacity * 8));
+        buffer.asDoubleBuffer().put(segment.averageUp, 0, segment.count);
+        buffer.position(SEGMENT_HEADER + (capacity * 16));
+        buffer.asDoubleBuffer().put(segment.averageDown, 0, segment.count);
+        buffer.position(SEGMENT_HEADER + (capacity * 24));
+        buffer.asDoubleBuffer().put(segment.rsi, 0, segment.count);
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(file(series.directory, s), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            RecordFile.writeFully(channel, buffer);
+        }
+        segment.dirty = false;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                throw new IOException("truncated segment");
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * one symbol's sparse index
+     */
+    static final class Series {
+        final Path directory;
+        long[] firstEnds = new long[4];
+        long[] lastEnds = new long[4];
+        int segments;
+        /** segments in the index, any after them is being appended to */
+        int sealed;
+
+        Series(Path directory) {
+            this.directory = directory;
+        }
+
+        void add(long firstEnd, long lastEnd) {
+            if (segments == firstEnds.length) {
+                firstEnds = Arrays.copyOf(firstEnds, segments << 1);
+                lastEnds = Arrays.copyOf(lastEnds, segments << 1);
+            }
+            firstEnds[segments] = firstEnd;
+            lastEnds[segments] = lastEnd;
+            segments++;
+        }
+    }
+
+    /**
+     * decoded columns of one segment
+     */
+    static final class Segment {
+        final long[] ends;
+        final double[] averageUp;
+        final double[] averageDown;
+        final double[] rsi;
+        int count;
+        /** holds intervals not yet written */
+        boolean dirty;
+
+        Segment(int capacity) {
+            ends = new long[capacity];
+            averageUp = new double[capacity];
+            averageDown = new double[capacity];
+            rsi = new double[capacity];
+        }
+    }
+
+    static final class SegmentKey {
+        final long symbolId;
+        final int segment;
+
+        SegmentKey(long symbolId, int segment) {
+            this.symbolId = symbolId;
+            this.segment = segment;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(SymbolTable.mix(symbolId)) * 31 + segment;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof SegmentKey)) {
+                return false;
+            }
+            SegmentKey other = (SegmentKey) obj;
+            return (symbolId == other.symbolId) && (segment == other.segment);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import jhoughton.math.rsi.TickConsumer;
+
+/**
+ * Streams a binary tick file written by {@link TickFileWriter} through memory
+ * mapped windows. Records are decoded straight from the mapping into a
+ * {@link TickConsumer}, nothing is allocated per tick. A single symbol
+ * calculator can be fed with e.g.
+ * {@code reader.replay((symbol, price, timestamp) -> calculator.trade(price, timestamp))}.
+ *
+ * @author jay
+ *
+ */
+public class TickFileReader implements Closeable {
+
+    private final FileChannel channel;
+    private final boolean withSymbol;
+    private final int stride;
+    private final long count;
+
+    public TickFileReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            short flags = RecordFile.readHeader(channel, TickFileWriter.MAGIC, TickFileWriter.STRIDE,
+                    TickFileWriter.SYMBOL_STRIDE);
+            withSymbol = (flags & RecordFile.FLAG_SYMBOL) != 0;
+            stride = withSymbol ? TickFileWriter.SYMBOL_STRIDE : TickFileWriter.STRIDE;
+            count = (channel.size() - RecordFile.HEADER) / stride;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of ticks in the file
+     */
+    public long count() {
+        return count;
+    }
+
+    public boolean hasSymbols() {
+        return withSymbol;
+    }
+
+    /**
+     * Stream every tick, in file order. Ticks without a symbol id are reported
+     * with symbol 0.
+     *
+     * @param consumer
+     */
+    public void replay(TickConsumer consumer) throws IOException {
+        final long perWindow = RecordFile.WINDOW / stride;
+        for (long first = 0; first < count; first += perWindow) {
+            final int records = (int) Math.min(perWindow, count - first);
+            final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY,
+                    RecordFile.HEADER + first * stride, (long) records * stride);
+            window.order(RecordFile.ORDER);
+            int offset = 0;
+            for (int r = 0; r < records; r++, offset += stride) {
+                final long timestamp = window.getLong(offset);
+                final double price = window.getDouble(offset + 8);
+                final long symbolId = withSymbol ? window.getLong(offset + 16) : 0;
+                consumer.trade(symbolId, price, timestamp);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
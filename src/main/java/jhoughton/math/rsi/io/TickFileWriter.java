@@ -0,0 +1,107 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import jhoughton.math.rsi.TickConsumer;
+
+/**
+ * Writes ticks in the fixed-stride binary tick format read by
+ * {@link TickFileReader}.
+ *
+ * <pre>
+ * long   timestamp
+ * double price
+ * long   symbolId   only when written with symbols
+ * </pre>
+ *
+ * @author jay
+ *
+ */
+public class TickFileWriter implements TickConsumer, Closeable {
+
+    static final int MAGIC = 0x52534954; // RSIT
+    static final int STRIDE = 16;
+    static final int SYMBOL_STRIDE = 24;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final boolean withSymbol;
+
+    public TickFileWriter(Path path, boolean withSymbol) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.withSymbol = withSymbol;
+        this.buffer = ByteBuffer.allocateDirect(RecordFile.WRITE_BUFFER).order(RecordFile.ORDER);
+        RecordFile.writeFully(channel, RecordFile.header(MAGIC, withSymbol, withSymbol ? SYMBOL_STRIDE : STRIDE));
+    }
+
+    public void write(double price, long timestamp) throws IOException {
+        write(0, price, timestamp);
+    }
+
+    public void write(long symbolId, double price, long timestamp) throws IOException {
+        if (buffer.remaining() < SYMBOL_STRIDE) {
+            flush();
+        }
+        buffer.putLong(timestamp).putDouble(price);
+        if (withSymbol) {
+            buffer.putLong(symbolId);
+        }
+    }
+
+    /**
+     * {@link TickConsumer} view of {@link #write(long, double, long)}
+     */
+    @Override
+    public void trade(long symbolId, double price, long timestamp) {
+        try {
+            write(symbolId, price, timestamp);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        RecordFile.writeFully(channel, buffer);
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
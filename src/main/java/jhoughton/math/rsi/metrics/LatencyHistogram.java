@@ -0,0 +1,108 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram with power of two buckets: bucket {@code k}
+ * counts values in {@code [2^(k-1), 2^k)}, bucket 0 counts zero. Recording is a
+ * leading-zero count and a striped increment, no allocation and no locks.
+ * Percentiles are reported as the upper bound of their bucket, so they are
+ * accurate to within a factor of two.
+ *
+ * @author jay
+ *
+ */
+public class LatencyHistogram {
+
+    public static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder total = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int k = 0; k < BUCKETS; k++) {
+            buckets[k] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param nanos negative values count as zero
+     */
+    public void record(long nanos) {
+        final long value = Math.max(0, nanos);
+        buckets[64 - Long.numberOfLeadingZeros(value)].increment();
+        total.add(value);
+    }
+
+    public long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public long bucket(int k) {
+        return buckets[k].sum();
+    }
+
+    public double mean() {
+        final long count = count();
+        return count == 0 ? 0 : (double) total.sum() / count;
+    }
+
+    /**
+     * @param quantile 0 to 1
+     * @return upper bound of the bucket holding the quantile, zero when empty
+     */
+    public long percentile(double quantile) {
+        final long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int k = 0; k < BUCKETS; k++) {
+            counts[k] = buckets[k].sum();
+            count += counts[k];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int k = 0; k < BUCKETS; k++) {
+            seen += counts[k];
+            if (seen >= rank) {
+                return k == 0 ? 0 : (k == 63 ? Long.MAX_VALUE : (1L << k) - 1);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        total.reset();
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and a latency histogram for one calculator, shard or engine. Every
+ * counter is a striped {@link LongAdder}, so any number of threads can record
+ * without contending and readers sum the stripes on demand.
+ * <p>
+ * Instrumentation is optional: the calculators and the engine only record when
+ * a metrics instance has been set, otherwise the cost is a null check.
+ *
+ * @author jay
+ *
+ */
+public class RsiMetrics implements RsiMetricsMBean {
+
+    public static final String DOMAIN = "jhoughton.math.rsi";
+
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder intervals = new LongAdder();
+    private final LongAdder lateTicks = new LongAdder();
+    private final LongAdder kickstarts = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public void tick() {
+        ticks.increment();
+    }
+
+    public void ticks(long count) {
+        ticks.add(count);
+    }
+
+    public void interval() {
+        intervals.increment();
+    }
+
+    public void lateTick() {
+        lateTicks.increment();
+    }
+
+    public void lateTicks(long count) {
+        lateTicks.add(count);
+    }
+
+    public void kickstart() {
+        kickstarts.increment();
+    }
+
+    public void latency(long nanos) {
+        latency.record(nanos);
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public long getTicks() {
+        return ticks.sum();
+    }
+
+    @Override
+    public long getIntervals() {
+        return intervals.sum();
+    }
+
+    @Override
+    public long getLateTicks() {
+        return lateTicks.sum();
+    }
+
+    @Override
+    public long getKickstarts() {
+        return kickstarts.sum();
+    }
+
+    @Override
+    public long getLatencyCount() {
+        return latency.count();
+    }
+
+    @Override
+    public double getLatencyMeanNanos() {
+        return latency.mean();
+    }
+
+    @Override
+    public long getLatencyP50Nanos() {
+        return latency.percentile(0.5);
+    }
+
+    @Override
+    public long getLatencyP99Nanos() {
+        return latency.percentile(0.99);
+    }
+
+    @Override
+    public long getLatencyP999Nanos() {
+        return latency.percentile(0.999);
+    }
+
+    @Override
+    public long getLatencyMaxBucketNanos() {
+        return latency.percentile(1);
+    }
+
+    @Override
+    public void reset() {
+        ticks.reset();
+        intervals.reset();
+        lateTicks.reset();
+        kickstarts.reset();
+        latency.reset();
+    }
+
+    /**
+     * @param name
+     * @return {@code jhoughton.math.rsi:type=RsiMetrics,name=<name>}
+     */
+    public static ObjectName objectName(String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=RsiMetrics,name=" + ObjectName.quote(name));
+    }
+
+    /**
+     * Register with the platform MBean server.
+     *
+     * @param name
+     * @return the registered name
+     */
+    public ObjectName register(String name) throws JMException {
+        return register(ManagementFactory.getPlatformMBeanServer(), name);
+    }
+
+    public ObjectName register(MBeanServer server, String name) throws JMException {
+        final ObjectName objectName = objectName(name);
+        server.registerMBean(this, objectName);
+        return objectName;
+    }
+}
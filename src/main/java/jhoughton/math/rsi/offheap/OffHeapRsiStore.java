@@ -0,0 +1,268 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.offheap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import jhoughton.math.rsi.IntervalListener;
+
+/**
+ * Wilder RSI state for millions of series kept off-heap. Every series is a
+ * fixed-stride slot in direct memory and {@link #trade(int, double, long)} is a
+ * stateless kernel running the {@link jhoughton.math.rsi.RsiCalculator} logic
+ * against a slot, so the heap holds a few buffer references however many
+ * series are tracked and the GC has nothing to mark.
+ *
+ * <pre>
+ *  0 double open
+ *  8 double lastPrice
+ * 16 long   begin        -1 until the first tick
+ * 24 long   expectedEnd
+ * 32 int    n            intervals closed
+ * 36 int    reserved
+ * 40 double averageUp
+ * 48 double averageDown
+ * 56 double warmUpUp     SMA kickstart sums
+ * 64 double warmUpDown
+ * </pre>
+ *
+ * The kickstart sums add the first {@code length} changes oldest first, exactly
+ * the order {@code RsiCalculator} sums its queue in, so no window of changes is
+ * needed and the stride does not depend on the length. Results are identical
+ * to an {@code RsiCalculator} with a {@link jhoughton.math.rsi.average.WilderAverage}.
+ * <p>
+ * Slots live in pages of up to 1GB, allocated as they are first needed. Not
+ * thread-safe, but different slots may be updated by different threads as long
+ * as allocation is done up front.
+ *
+ * @author jay
+ *
+ */
+public class OffHeapRsiStore {
+
+    public static final int STRIDE = 72;
+
+    static final int OPEN = 0;
+    static final int LAST_PRICE = 8;
+    static final int BEGIN = 16;
+    static final int EXPECTED_END = 24;
+    static final int COUNT = 32;
+    static final int AVERAGE_UP = 40;
+    static final int AVERAGE_DOWN = 48;
+    static final int WARM_UP_UP = 56;
+    static final int WARM_UP_DOWN = 64;
+
+    /**
+     * slots per page as a power of two, keeps a page under 1GB
+     */
+    private static final int PAGE_SHIFT = 31 - Integer.numberOfLeadingZeros((1 << 30) / STRIDE);
+    private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+
+    private final long period;
+    private final int length;
+    private final int lengthMinusOne;
+    private final int capacity;
+
+    private ByteBuffer[] pages = new ByteBuffer[0];
+    private int size;
+
+    /**
+     * @param period
+     * @param length
+     * @param capacity most series the store will hold
+     */
+    public OffHeapRsiStore(long period, int length, int capacity) {
+        if (length < 1) {
+            throw new IllegalArgumentException("length must be positive: " + length);
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+        }
+        this.period = period;
+        this.length = length;
+        this.lengthMinusOne = length - 1;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return index of a fresh slot
+     * @throws IllegalStateException when the store is full
+     */
+    public int allocate() {
+        if (size == capacity) {
+            throw new IllegalStateException("store is full: " + capacity);
+        }
+        final int slot = size++;
+        final int page = slot >>> PAGE_SHIFT;
+        if (page == pages.length) {
+            final int slots = Math.min(PAGE_MASK + 1, capacity - (page << PAGE_SHIFT));
+            pages = Arrays.copyOf(pages, page + 1);
+            pages[page] = ByteBuffer.allocateDirect(slots * STRIDE).order(ByteOrder.nativeOrder());
+        }
+        final ByteBuffer b = pages[page];
+        final int o = offset(slot);
+        for (int j = 0; j < STRIDE; j += 8) {
+            b.putLong(o + j, 0);
+        }
+        b.putLong(o + BEGIN, -1);
+        return slot;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private static int offset(int slot) {
+        return (slot & PAGE_MASK) * STRIDE;
+    }
+
+    private ByteBuffer page(int slot) {
+        return pages[slot >>> PAGE_SHIFT];
+    }
+
+    /**
+     * Apply a tick to a series.
+     *
+     * @param slot
+     * @param price
+     * @param timestamp
+     * @return true if the tick closed an interval, read it with the getters
+     */
+    public boolean trade(int slot, double price, long timestamp) {
+        return trade(slot, price, timestamp, null);
+    }
+
+    /**
+     * @param listener notified if the tick closes an interval, may be null
+     * @see #trade(int, double, long)
+     */
+    public boolean trade(int slot, double price, long timestamp, IntervalListener listener) {
+        final ByteBuffer b = page(slot);
+        final int o = offset(slot);
+        boolean closed = false;
+
+        final long expectedEnd = b.getLong(o + EXPECTED_END);
+        if (b.getLong(o + BEGIN) == -1) {
+            b.putDouble(o + OPEN, price);
+            b.putLong(o + BEGIN, timestamp);
+            b.putLong(o + EXPECTED_END, (timestamp + period) - 1);
+        } else if (timestamp >= expectedEnd) {
+            close(b, o, b.getDouble(o + OPEN), b.getDouble(o + LAST_PRICE));
+            if (listener != null) {
+                listener.onInterval(expectedEnd, getRsi(slot), getAverageUp(slot), getAverageDown(slot));
+            }
+            b.putDouble(o + OPEN, price);
+            b.putLong(o + BEGIN, expectedEnd + 1);
+            b.putLong(o + EXPECTED_END, expectedEnd + period);
+            closed = true;
+        }
+
+        b.putDouble(o + LAST_PRICE, price);
+        return closed;
+    }
+
+    private void close(ByteBuffer b, int o, double open, double close) {
+        double changeUp = 0;
+        double changeDown = 0;
+        final double delta = close - open;
+        if (delta > 0) {
+            changeUp = delta;
+        } else {
+            changeDown = 0 - delta;
+        }
+        final int n = b.getInt(o + COUNT) + 1;
+        b.putInt(o + COUNT, n);
+
+        if (n <= length) {
+            b.putDouble(o + WARM_UP_UP, b.getDouble(o + WARM_UP_UP) + changeUp);
+            b.putDouble(o + WARM_UP_DOWN, b.getDouble(o + WARM_UP_DOWN) + changeDown);
+            return;
+        }
+        double lastUp;
+        double lastDown;
+        if (n == (length + 1)) {
+            lastUp = b.getDouble(o + WARM_UP_UP) / length;
+            lastDown = b.getDouble(o + WARM_UP_DOWN) / length;
+        } else {
+            lastUp = b.getDouble(o + AVERAGE_UP);
+            lastDown = b.getDouble(o + AVERAGE_DOWN);
+        }
+        b.putDouble(o + AVERAGE_UP, (changeUp + (lastUp * lengthMinusOne)) / length);
+        b.putDouble(o + AVERAGE_DOWN, (changeDown + (lastDown * lengthMinusOne)) / length);
+    }
+
+    /**
+     * @return number of intervals the series closed
+     */
+    public int getCount(int slot) {
+        return page(slot).getInt(offset(slot) + COUNT);
+    }
+
+    /**
+     * @return up SMMA of the last closed interval, zero during warm-up
+     */
+    public double getAverageUp(int slot) {
+        return getCount(slot) > length ? page(slot).getDouble(offset(slot) + AVERAGE_UP) : 0;
+    }
+
+    /**
+     * @return down SMMA of the last closed interval, zero during warm-up
+     */
+    public double getAverageDown(int slot) {
+        return getCount(slot) > length ? page(slot).getDouble(offset(slot) + AVERAGE_DOWN) : 0;
+    }
+
+    /**
+     * @return RSI of the last closed interval, zero during warm-up
+     */
+    public double getRsi(int slot) {
+        if (getCount(slot) <= length) {
+            return 0;
+        }
+        final double rs = getAverageUp(slot) / getAverageDown(slot);
+        return 100 - (100 / (1 + rs));
+    }
+
+    public long getBegin(int slot) {
+        return page(slot).getLong(offset(slot) + BEGIN);
+    }
+
+    public long getExpectedEnd(int slot) {
+        return page(slot).getLong(offset(slot) + EXPECTED_END);
+    }
+
+    public long getPeriod() {
+        return period;
+    }
+
+    public int getLength() {
+        return length;
+    }
+}
@@ -0,0 +1,258 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.universe;
+
+import java.util.Arrays;
+
+import jhoughton.math.rsi.AverageCalculator.Averager;
+
+/**
+ * Columnar RSI over a universe of symbols whose intervals all close at the
+ * same time, e.g. end-of-bar processing. Instead of one
+ * {@link jhoughton.math.rsi.RsiCalculator} per symbol the state is held as
+ * structure-of-arrays ({@code averageUp[]}, {@code averageDown[]},
+ * {@code lastClose[]}, ...) indexed by symbol, and every bar is applied to the
+ * whole universe in one pass.
+ * <p>
+ * Because all symbols advance in lockstep the warm-up phase, the kickstart and
+ * the Cutler ring position are shared, leaving the per-symbol loops free of
+ * branches and running over contiguous {@code double[]}s, which is the shape
+ * HotSpot's superword pass vectorizes.
+ * <p>
+ * Per symbol the results match an {@link jhoughton.math.rsi.RsiCalculator}
+ * with the same {@link Averager} (one averager instance per side for Cutler)
+ * fed the same interval opens and closes.
+ *
+ * @author jay
+ *
+ */
+public class UniverseRsiCalculator {
+
+    private final int size;
+    private final int length;
+    private final int lengthMinusOne; // pre-compute
+    private final Averager averager;
+
+    // --- per symbol columns
+    private final double[] lastClose;
+    private final double[] averageUp;
+    private final double[] averageDown;
+    private final double[] rsi;
+
+    // --- Cutler windows, one row of `size` entries per ring position
+    private final double[] windowUp;
+    private final double[] windowDown;
+    private int fill;
+    private int position;
+
+    private int n = 0; // intervalCounter
+    private boolean primed;
+
+    public UniverseRsiCalculator(int size, int length, Averager averager) {
+        if (length < 1) {
+            throw new IllegalArgumentException("length must be positive: " + length);
+        }
+        this.size = size;
+        this.length = length;
+        this.lengthMinusOne = length - 1;
+        this.averager = averager;
+        lastClose = new double[size];
+        averageUp = new double[size];
+        averageDown = new double[size];
+        rsi = new double[size];
+        if (averager == Averager.Cutler) {
+            windowUp = new double[length * size];
+            windowDown = new double[length * size];
+        } else {
+            windowUp = null;
+            windowDown = null;
+        }
+    }
+
+    /**
+     * Close one bar for every symbol, using each symbol's previous close as the
+     * open. The first call only records the closes.
+     *
+     * @param close per symbol close
+     * @return true once RSI values are available
+     */
+    public boolean close(double[] close) {
+        if (!primed) {
+            System.arraycopy(close, 0, lastClose, 0, size);
+            primed = true;
+            return false;
+        }
+        return close(lastClose, close);
+    }
+
+    /**
+     * Close one bar for every symbol.
+     *
+     * @param open  per symbol open, may be {@link #lastClose()}
+     * @param close per symbol close
+     * @return true once RSI values are available
+     */
+    public boolean close(double[] open, double[] close) {
+        if (open.length < size || close.length < size) {
+            throw new IllegalArgumentException("expected " + size + " prices");
+        }
+        n++;
+        if (n <= length) {
+            // warm-up, accumulate the SMA used to kickstart the series
+            accumulate(open, close);
+        } else if (averager == Averager.Cutler) {
+            cutler(open, close);
+        } else {
+            if (n == length + 1) {
+                kickstart();
+            }
+            wilder(open, close);
+        }
+        primed = true;
+        return n > length;
+    }
+
+    private void accumulate(double[] open, double[] close) {
+        final double[] up = averageUp;
+        final double[] down = averageDown;
+        final double[] last = lastClose;
+        for (int s = 0; s < size; s++) {
+            final double c = close[s];
+            final double delta = c - open[s];
+            up[s] += Math.max(delta, 0);
+            down[s] += Math.max(-delta, 0);
+            last[s] = c;
+        }
+    }
+
+    private void kickstart() {
+        for (int s = 0; s < size; s++) {
+            averageUp[s] = averageUp[s] / length;
+            averageDown[s] = averageDown[s] / length;
+        }
+    }
+
+    private void wilder(double[] open, double[] close) {
+        final double[] up = averageUp;
+        final double[] down = averageDown;
+        final double[] last = lastClose;
+        final double[] out = rsi;
+        final double lm1 = lengthMinusOne;
+        final double len = length;
+        for (int s = 0; s < size; s++) {
+            final double c = close[s];
+            final double delta = c - open[s];
+            final double u = (Math.max(delta, 0) + (up[s] * lm1)) / len;
+            final double d = (Math.max(-delta, 0) + (down[s] * lm1)) / len;
+            up[s] = u;
+            down[s] = d;
+            out[s] = 100 - (100 / (1 + (u / d)));
+            last[s] = c;
+        }
+    }
+
+    private void cutler(double[] open, double[] close) {
+        if (n == length + 1) {
+            // Cutler's SMA restarts from its own window, drop the warm-up sums
+            Arrays.fill(averageUp, 0);
+            Arrays.fill(averageDown, 0);
+        }
+        final boolean full = fill == length;
+        if (!full) {
+            fill++;
+        }
+        final double divisor = fill;
+        final int row = position * size;
+
+        // averageUp/averageDown hold the running window sums for Cutler
+        final double[] sumUp = averageUp;
+        final double[] sumDown = averageDown;
+        final double[] ringUp = windowUp;
+        final double[] ringDown = windowDown;
+        final double[] last = lastClose;
+        final double[] out = rsi;
+        for (int s = 0; s < size; s++) {
+            final double c = close[s];
+            final double delta = c - open[s];
+            final double u = Math.max(delta, 0);
+            final double d = Math.max(-delta, 0);
+            final double su = (full ? sumUp[s] - ringUp[row + s] : sumUp[s]) + u;
+            final double sd = (full ? sumDown[s] - ringDown[row + s] : sumDown[s]) + d;
+            sumUp[s] = su;
+            sumDown[s] = sd;
+            ringUp[row + s] = u;
+            ringDown[row + s] = d;
+            out[s] = 100 - (100 / (1 + ((su / divisor) / (sd / divisor))));
+            last[s] = c;
+        }
+
+        if (++position == length) {
+            position = 0;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of bars closed so far
+     */
+    public int count() {
+        return n;
+    }
+
+    /**
+     * @return live per symbol RSI column, zero during warm-up
+     */
+    public double[] rsi() {
+        return rsi;
+    }
+
+    public double getRsi(int symbol) {
+        return rsi[symbol];
+    }
+
+    public double getAverageUp(int symbol) {
+        if (n <= length) {
+            return 0;
+        }
+        return averager == Averager.Cutler ? averageUp[symbol] / fill : averageUp[symbol];
+    }
+
+    public double getAverageDown(int symbol) {
+        if (n <= length) {
+            return 0;
+        }
+        return averager == Averager.Cutler ? averageDown[symbol] / fill : averageDown[symbol];
+    }
+
+    /**
+     * @return live per symbol last close column
+     */
+    public double[] lastClose() {
+        return lastClose;
+    }
+
+}
@@ -0,0 +1,140 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import jhoughton.math.rsi.RsiCalculator.GapPolicy;
+import jhoughton.math.rsi.average.WilderAverage;
+import jhoughton.math.rsi.metrics.RsiMetrics;
+
+/**
+ * @author jay
+ *
+ */
+class TestBatchTrade {
+
+    private static final long PERIOD = 1000;
+    private static final int LENGTH = 14;
+
+    @Test
+    void testGallop() {
+        long[] ts = { 1, 3, 3, 3, 7, 9, 12, 12, 20 };
+        for (long key = 0; key <= 21; key++) {
+            for (int from = 0; from <= ts.length; from++) {
+                int expected = from;
+                while ((expected < ts.length) && (ts[expected] < key)) {
+                    expected++;
+                }
+                assertEquals(expected, TickArrays.gallop(ts, from, ts.length, key), "key " + key + " from " + from);
+            }
+        }
+    }
+
+    @Test
+    void testRsiCalculatorMatchesPerTick() {
+        Random random = new Random(8);
+        int n = 200_000;
+        long[] ts = new long[n];
+        double[] prices = new double[n];
+        long t = 0;
+        for (int k = 0; k < n; k++) {
+            // dense runs, duplicate timestamps and the odd multi-period gap
+            t += random.nextInt(100) == 0 ? random.nextInt(5000) : random.nextInt(3);
+            ts[k] = t;
+            prices[k] = 100 + random.nextInt(20);
+        }
+
+        for (GapPolicy policy : GapPolicy.values()) {
+            List<Double> gapsExpected = new ArrayList<>();
+            List<Double> gapsActual = new ArrayList<>();
+            RsiMetrics expectedMetrics = new RsiMetrics();
+            RsiMetrics actualMetrics = new RsiMetrics();
+            RsiCalculator reference = new RsiCalculator(PERIOD, LENGTH);
+            reference.setGapPolicy(policy, i -> gapsExpected.add(i.getRsi()));
+            reference.setMetrics(expectedMetrics);
+            RsiCalculator batch = new RsiCalculator(PERIOD, LENGTH);
+            batch.setGapPolicy(policy, i -> gapsActual.add(i.getRsi()));
+            batch.setMetrics(actualMetrics);
+
+            List<Double> expected = new ArrayList<>();
+            for (int k = 0; k < n; k++) {
+                Interval i = reference.trade(prices[k], ts[k]);
+                if (i != null) {
+                    expected.add(i.getRsi());
+                }
+            }
+
+            List<Double> actual = new ArrayList<>();
+            int closed = 0;
+            int p = 0;
+            while (p < n) {
+                int length = Math.min(n - p, random.nextInt(5000));
+                closed += batch.trade(ts, prices, p, length, i -> actual.add(i.getRsi()));
+                p += length;
+            }
+
+            assertEquals(expected, actual, policy.name());
+            assertEquals(expected.size(), closed);
+            assertEquals(gapsExpected, gapsActual);
+            assertEquals(reference.liveRsi(), batch.liveRsi());
+            assertEquals(expectedMetrics.getTicks(), actualMetrics.getTicks());
+            assertEquals(expectedMetrics.getLateTicks(), actualMetrics.getLateTicks());
+            assertEquals(expectedMetrics.getIntervals(), actualMetrics.getIntervals());
+        }
+    }
+
+    @Test
+    void testPrimitiveMatchesPerTick() {
+        Random random = new Random(9);
+        int n = 100_000;
+        long[] ts = new long[n];
+        double[] prices = new double[n];
+        for (int k = 0; k < n; k++) {
+            ts[k] = k / 3;
+            prices[k] = 100 + random.nextInt(20);
+        }
+        List<Long> expected = new ArrayList<>();
+        PrimitiveRsiCalculator reference = new PrimitiveRsiCalculator(PERIOD, LENGTH, new WilderAverage(LENGTH),
+                (end, rsi, up, down) -> expected.add(end ^ Double.doubleToLongBits(rsi)));
+        for (int k = 0; k < n; k++) {
+            reference.trade(prices[k], ts[k]);
+        }
+        List<Long> actual = new ArrayList<>();
+        PrimitiveRsiCalculator batch = new PrimitiveRsiCalculator(PERIOD, LENGTH, new WilderAverage(LENGTH),
+                (end, rsi, up, down) -> actual.add(end ^ Double.doubleToLongBits(rsi)));
+        assertEquals(expected.size(), batch.trade(ts, prices, 0, n));
+        assertEquals(expected, actual);
+        assertEquals(reference.liveRsi(), batch.liveRsi());
+
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.trade(ts, prices, n - 1, 2));
+    }
+}
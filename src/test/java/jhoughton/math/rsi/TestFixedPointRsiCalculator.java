@@ -0,0 +1,117 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author jay
+ *
+ */
+class TestFixedPointRsiCalculator {
+
+    private static final long PERIOD = 10;
+    private static final int LENGTH = 14;
+    private static final double SCALE = 0.01;
+
+    @Test
+    void testMatchesDoubleCalculator() {
+        FixedPointRsiCalculator fixed = new FixedPointRsiCalculator(PERIOD, LENGTH, SCALE);
+        RsiCalculator reference = new RsiCalculator(PERIOD, LENGTH);
+        Random random = new Random(5);
+        long price = 10_000;
+        int closes = 0;
+        for (long t = 0; t < 20_000; t++) {
+            price += random.nextInt(21) - 10;
+            Interval expected = reference.trade(price * SCALE, t);
+            Interval actual = fixed.trade(price, t);
+            if (expected == null) {
+                assertNull(actual);
+                continue;
+            }
+            assertNotNull(actual);
+            closes++;
+            assertEquals(expected.getChangeUp(), actual.getChangeUp(), 1e-9);
+            assertEquals(expected.getChangeDown(), actual.getChangeDown(), 1e-9);
+            assertEquals(expected.getAverageUp(), actual.getAverageUp(), 1e-6);
+            assertEquals(expected.getAverageDown(), actual.getAverageDown(), 1e-6);
+            assertEquals(expected.getRsi(), actual.getRsi(), 1e-3);
+        }
+        assertEquals(closes, fixed.count());
+    }
+
+    @Test
+    void testDeterministicRounding() {
+        // up 1 tick on every interval: SMA kickstart is exactly 1.0, and stays there
+        FixedPointRsiCalculator fixed = new FixedPointRsiCalculator(10, 3, 1);
+        for (long k = 0; k < 40; k++) {
+            fixed.trade(k, k * 5);
+        }
+        assertEquals(19, fixed.count());
+        assertEquals(1L << FixedPointRsiCalculator.FRACTION_BITS, fixed.getRawAverageUp());
+        assertEquals(0, fixed.getRawAverageDown());
+    }
+
+    @Test
+    void testCheckpoint() {
+        FixedPointRsiCalculator a = new FixedPointRsiCalculator(PERIOD, LENGTH, SCALE);
+        Random random = new Random(9);
+        long t = 0;
+        for (; t < 500; t++) {
+            a.trade(1000 + random.nextInt(50), t);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(a.checkpointSize());
+        a.checkpoint(buffer);
+        buffer.flip();
+        FixedPointRsiCalculator b = new FixedPointRsiCalculator(PERIOD, LENGTH, SCALE);
+        b.restore(buffer);
+        for (; t < 1000; t++) {
+            long price = 1000 + random.nextInt(50);
+            Interval x = a.trade(price, t);
+            Interval y = b.trade(price, t);
+            if (x != null) {
+                assertEquals(x.getRsi(), y.getRsi());
+            }
+        }
+        assertEquals(a.getRawAverageUp(), b.getRawAverageUp());
+    }
+
+    @Test
+    void testLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new FixedPointRsiCalculator(PERIOD, (1 << 16) + 1, SCALE));
+        assertThrows(IllegalArgumentException.class, () -> new FixedPointRsiCalculator(PERIOD, LENGTH, 0));
+        FixedPointRsiCalculator fixed = new FixedPointRsiCalculator(PERIOD, LENGTH, SCALE);
+        fixed.trade(0, 0);
+        fixed.trade(1L << 40, 5);
+        assertThrows(ArithmeticException.class, () -> fixed.trade(0, 10));
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import jhoughton.math.rsi.average.CutlerAverage;
+
+/**
+ * @author jay
+ *
+ */
+class TestLiveRsi {
+
+    private static final int LENGTH = 6;
+
+    @Test
+    void testRsiCalculatorLiveMatchesClose() {
+        RsiCalculator polled = new RsiCalculator(10, LENGTH, new CutlerAverage(LENGTH), new CutlerAverage(LENGTH));
+        RsiCalculator untouched = new RsiCalculator(10, LENGTH, new CutlerAverage(LENGTH), new CutlerAverage(LENGTH));
+        assertTrue(Double.isNaN(polled.liveRsi()));
+
+        Random random = new Random(21);
+        double live = Double.NaN;
+        int checked = 0;
+        for (long t = 0; t < 5_000; t += 1 + random.nextInt(4)) {
+            double price = 100 + random.nextInt(8);
+            Interval closed = polled.trade(price, t);
+            Interval expected = untouched.trade(price, t);
+            if (closed != null) {
+                assertEquals(expected.getRsi(), closed.getRsi());
+                if (!Double.isNaN(live)) {
+                    assertEquals(closed.getRsi(), live);
+                    checked++;
+                }
+            }
+            live = polled.liveRsi();
+        }
+        assertTrue(checked > 400);
+    }
+
+    @Test
+    void testPrimitiveLiveMatchesClose() {
+        PrimitiveRsiCalculator calculator = new PrimitiveRsiCalculator(10, LENGTH);
+        Random random = new Random(23);
+        double live = Double.NaN;
+        int checked = 0;
+        for (long t = 0; t < 5_000; t += 1 + random.nextInt(4)) {
+            Interval closed = calculator.trade(100 + random.nextInt(8), t);
+            if (closed != null) {
+                if (calculator.series().count() <= LENGTH) {
+                    assertTrue(Double.isNaN(live));
+                } else {
+                    assertEquals(closed.getRsi(), live);
+                    checked++;
+                }
+            }
+            live = calculator.liveRsi();
+        }
+        assertTrue(checked > 400);
+    }
+
+}
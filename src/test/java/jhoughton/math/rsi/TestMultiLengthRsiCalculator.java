@@ -0,0 +1,65 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author jay
+ *
+ */
+class TestMultiLengthRsiCalculator {
+
+    private static final int[] LENGTHS = { 2, 5, 9, 14, 21, 50 };
+
+    @Test
+    void testMatchesOneCalculatorPerLength() {
+        MultiLengthRsiCalculator multi = new MultiLengthRsiCalculator(10, LENGTHS);
+        RsiCalculator[] single = new RsiCalculator[LENGTHS.length];
+        for (int j = 0; j < LENGTHS.length; j++) {
+            single[j] = new RsiCalculator(10, LENGTHS[j]);
+        }
+
+        Random random = new Random(13);
+        for (long t = 0; t < 20_000; t += 1 + random.nextInt(5)) {
+            double price = 100 + random.nextInt(11);
+            boolean closed = multi.trade(price, t);
+            for (int j = 0; j < LENGTHS.length; j++) {
+                Interval expected = single[j].trade(price, t);
+                assertEquals(expected != null, closed);
+                if (expected != null) {
+                    assertEquals(expected.getAverageUp(), multi.getAverageUp(j), "length " + LENGTHS[j]);
+                    assertEquals(expected.getAverageDown(), multi.getAverageDown(j), "length " + LENGTHS[j]);
+                    assertEquals(expected.getRsi(), multi.getRsi(j), "length " + LENGTHS[j]);
+                }
+            }
+        }
+        assertEquals(LENGTHS.length, multi.lengths());
+    }
+
+}
@@ -0,0 +1,78 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author jay
+ *
+ */
+class TestMultiTimeframeRsiCalculator {
+
+    private static final long[] PERIODS = { 10, 50, 150, 600 };
+    private static final int[] LENGTHS = { 14, 9, 5, 3 };
+
+    @Test
+    void testMatchesOneCalculatorPerTimeframe() {
+        MultiTimeframeRsiCalculator multi = new MultiTimeframeRsiCalculator(PERIODS, LENGTHS);
+        RsiCalculator[] single = new RsiCalculator[PERIODS.length];
+        for (int j = 0; j < PERIODS.length; j++) {
+            single[j] = new RsiCalculator(PERIODS[j], LENGTHS[j]);
+        }
+
+        Random random = new Random(9);
+        int[] closes = new int[PERIODS.length];
+        for (long t = 0; t < 60_000; t++) {
+            double price = 100 + random.nextInt(15);
+            int closed = multi.trade(price, t);
+            for (int j = 0; j < PERIODS.length; j++) {
+                Interval expected = single[j].trade(price, t);
+                assertEquals(expected != null, j < closed, "timeframe " + j + " at " + t);
+                if (expected != null) {
+                    closes[j]++;
+                    Interval actual = multi.interval(j);
+                    assertEquals(expected.getChangeUp(), actual.getChangeUp());
+                    assertEquals(expected.getChangeDown(), actual.getChangeDown());
+                    assertEquals(expected.getAverageUp(), actual.getAverageUp());
+                    assertEquals(expected.getAverageDown(), actual.getAverageDown());
+                    assertEquals(expected.getRsi(), actual.getRsi());
+                }
+            }
+        }
+        assertEquals(100, closes[PERIODS.length - 1]);
+    }
+
+    @Test
+    void testRejectsUnalignedPeriods() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new MultiTimeframeRsiCalculator(new long[] { 10, 25 }, new int[] { 14, 14 }));
+    }
+
+}
@@ -0,0 +1,125 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import jhoughton.math.rsi.TestWilderRsiCalculator.Trade;
+import jhoughton.math.rsi.average.CutlerAverage;
+import jhoughton.math.rsi.average.WilderAverage;
+
+/**
+ * @author jay
+ *
+ */
+class TestPrimitiveRsiCalculator {
+
+    @Test
+    void testMatchesRsiCalculator() {
+        RsiCalculator expected = new RsiCalculator(10_000, 14);
+        PrimitiveRsiCalculator actual = new PrimitiveRsiCalculator(10_000, 14);
+
+        for (Trade t : TestWilderRsiCalculator.trades) {
+            assertSame(expected.trade(t.price, t.timestamp * 1000), actual.trade(t.price, t.timestamp * 1000));
+        }
+        assertEquals(67.5436989009114d, actual.series().last().getRsi());
+    }
+
+    @Test
+    void testMatchesRsiCalculatorWithCutler() {
+        RsiCalculator expected = new RsiCalculator(5, 6, new CutlerAverage(6));
+        PrimitiveRsiCalculator actual = new PrimitiveRsiCalculator(5, 6, new CutlerAverage(6));
+
+        Random random = new Random(7);
+        for (long t = 0; t < 5000; t++) {
+            double price = 50 + random.nextInt(10);
+            assertSame(expected.trade(price, t), actual.trade(price, t));
+        }
+    }
+
+    @Test
+    void testListener() {
+        long[] ends = new long[2];
+        int[] closes = new int[1];
+        PrimitiveRsiCalculator calculator = new PrimitiveRsiCalculator(10, 2, new WilderAverage(2),
+                (end, rsi, up, down) -> ends[closes[0]++] = end);
+        calculator.trade(1, 0);
+        calculator.trade(2, 10);
+        calculator.trade(3, 25);
+        assertEquals(2, closes[0]);
+        assertEquals(9, ends[0]);
+        assertEquals(19, ends[1]);
+    }
+
+    @Test
+    void testSteadyStateAllocation() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Sink sink = new Sink();
+        PrimitiveRsiCalculator calculator = new PrimitiveRsiCalculator(4, 14, new CutlerAverage(14), sink);
+
+        long t = 0;
+        for (; t < 100_000; t++) {
+            calculator.trade(100 + (t % 7), t);
+        }
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (; t < 1_100_000; t++) {
+            calculator.trade(100 + (t % 7), t);
+        }
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+        assertTrue(sink.closes > 0);
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+    }
+
+    private static void assertSame(Interval expected, Interval actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertEquals(expected.getChangeUp(), actual.getChangeUp());
+        assertEquals(expected.getChangeDown(), actual.getChangeDown());
+        assertEquals(expected.getAverageUp(), actual.getAverageUp());
+        assertEquals(expected.getAverageDown(), actual.getAverageDown());
+        assertEquals(expected.getRs(), actual.getRs());
+        assertEquals(expected.getRsi(), actual.getRsi());
+    }
+
+    static class Sink implements IntervalListener {
+        int closes;
+        double rsi;
+
+        @Override
+        public void onInterval(long end, double rsi, double averageUp, double averageDown) {
+            closes++;
+            this.rsi = rsi;
+        }
+    }
+}
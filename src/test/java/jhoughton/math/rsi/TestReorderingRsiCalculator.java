@@ -0,0 +1,142 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import jhoughton.math.rsi.average.WilderAverage;
+
+/**
+ * @author jay
+ *
+ */
+class TestReorderingRsiCalculator {
+
+    private static final long PERIOD = 10;
+    private static final int LENGTH = 14;
+
+    @Test
+    void testRestoresOrder() {
+        int ticks = 20_000;
+        double[] prices = new double[ticks];
+        Random random = new Random(21);
+        for (int t = 0; t < ticks; t++) {
+            prices[t] = 100 + random.nextInt(20);
+        }
+
+        List<Double> expected = new ArrayList<>();
+        PrimitiveRsiCalculator reference = new PrimitiveRsiCalculator(PERIOD, LENGTH, new WilderAverage(LENGTH),
+                (end, rsi, up, down) -> expected.add(rsi));
+        for (int t = 0; t < ticks; t++) {
+            reference.trade(prices[t], t);
+        }
+
+        // shuffle within a window of 8, well inside the lateness
+        int[] order = new int[ticks];
+        for (int t = 0; t < ticks; t++) {
+            order[t] = t;
+        }
+        for (int base = 0; base < ticks; base += 8) {
+            for (int k = Math.min(ticks, base + 8) - 1; k > base; k--) {
+                int j = base + random.nextInt((k - base) + 1);
+                int swap = order[k];
+                order[k] = order[j];
+                order[j] = swap;
+            }
+        }
+
+        List<Double> actual = new ArrayList<>();
+        ReorderingRsiCalculator reordering = new ReorderingRsiCalculator(new PrimitiveRsiCalculator(PERIOD, LENGTH,
+                new WilderAverage(LENGTH), (end, rsi, up, down) -> actual.add(rsi)), 16, 64);
+        int closed = 0;
+        for (int t : order) {
+            closed += reordering.trade(prices[t], t);
+        }
+        closed += reordering.flush();
+
+        assertEquals(expected, actual);
+        assertEquals(expected.size(), closed);
+        assertEquals(0, reordering.getDropped());
+        assertTrue(reordering.getReordered() > 0);
+    }
+
+    @Test
+    void testDropsTooLate() {
+        List<Long> ends = new ArrayList<>();
+        ReorderingRsiCalculator reordering = new ReorderingRsiCalculator(
+                new PrimitiveRsiCalculator(PERIOD, LENGTH, new WilderAverage(LENGTH),
+                        (end, rsi, up, down) -> ends.add(end)),
+                5, 16);
+        reordering.trade(100, 0);
+        reordering.trade(101, 20); // watermark 15 releases 0
+        assertEquals(1, reordering.buffered());
+        reordering.trade(99, 16); // within lateness
+        reordering.trade(98, -1); // older than what was released
+        assertEquals(1, reordering.getDropped());
+        assertEquals(1, reordering.getReordered());
+        assertEquals(2, reordering.buffered());
+        reordering.flush();
+        assertEquals(0, reordering.buffered());
+        assertEquals(List.of(9L, 19L), ends);
+    }
+
+    @Test
+    void testFullRingKeepsOrder() {
+        List<Long> seen = new ArrayList<>();
+        PrimitiveRsiCalculator recording = new PrimitiveRsiCalculator(PERIOD, LENGTH, new WilderAverage(LENGTH)) {
+            @Override
+            public Interval trade(double price, long timestamp) {
+                seen.add(timestamp);
+                return super.trade(price, timestamp);
+            }
+        };
+        ReorderingRsiCalculator reordering = new ReorderingRsiCalculator(recording, 100, 4);
+        for (long ts : new long[] { 10, 11, 12, 13, 5, 12, 14 }) {
+            reordering.trade(100, ts);
+        }
+        reordering.flush();
+        assertEquals(List.of(5L, 10L, 11L, 12L, 12L, 13L, 14L), seen);
+        assertEquals(0, reordering.getDropped());
+    }
+
+    @Test
+    void testCapacityRounding() {
+        PrimitiveRsiCalculator calculator = new PrimitiveRsiCalculator(PERIOD, LENGTH, new WilderAverage(LENGTH));
+        int[][] cases = { { 1, 1 }, { 2, 2 }, { 3, 4 }, { 4, 4 }, { 5, 8 } };
+        for (int[] c : cases) {
+            ReorderingRsiCalculator reordering = new ReorderingRsiCalculator(calculator, Long.MAX_VALUE / 2, c[0]);
+            for (int t = 0; t < 16; t++) {
+                reordering.trade(100, 1000 + t);
+            }
+            assertEquals(c[1], reordering.buffered(), "capacity " + c[0]);
+        }
+    }
+}
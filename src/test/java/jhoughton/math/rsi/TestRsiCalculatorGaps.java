@@ -0,0 +1,166 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import jhoughton.math.rsi.RsiCalculator.GapPolicy;
+import jhoughton.math.rsi.average.CutlerAverage;
+
+/**
+ * @author jay
+ *
+ */
+class TestRsiCalculatorGaps {
+
+    private static final int LENGTH = 5;
+    private static final long GAP = 1234;
+
+    @Test
+    void testEmitMatchesFlatTicks() {
+        verifyEmit(() -> new RsiCalculator(10, LENGTH));
+        verifyEmit(() -> new RsiCalculator(10, LENGTH, new CutlerAverage(LENGTH), new CutlerAverage(LENGTH)));
+    }
+
+    @Test
+    void testSkipMatchesEmit() {
+        RsiCalculator emit = new RsiCalculator(10, LENGTH);
+        RsiCalculator skip = new RsiCalculator(10, LENGTH);
+        emit.setGapPolicy(GapPolicy.Emit, i -> {
+        });
+        skip.setGapPolicy(GapPolicy.Skip, null);
+
+        double lastPrice = feed(emit, new Random(1));
+        feed(skip, new Random(1));
+        emit.trade(lastPrice + 3, GAP);
+        skip.trade(lastPrice + 3, GAP);
+
+        Interval expected = emit.trade(lastPrice, GAP + 10);
+        Interval actual = skip.trade(lastPrice, GAP + 10);
+        assertEquals(expected.getAverageUp(), actual.getAverageUp(), 1e-12);
+        assertEquals(expected.getAverageDown(), actual.getAverageDown(), 1e-12);
+        assertEquals(expected.getRsi(), actual.getRsi(), 1e-9);
+    }
+
+    @Test
+    void testHugeGapKeepsCalculating() {
+        List<Supplier<RsiCalculator>> factories = List.of(() -> new RsiCalculator(10, LENGTH),
+                () -> new RsiCalculator(10, LENGTH, new CutlerAverage(LENGTH), new CutlerAverage(LENGTH)),
+                () -> AverageCalculator.Averager.Wilder.newCalculator(10, LENGTH),
+                () -> AverageCalculator.Averager.Cutler.newCalculator(10, LENGTH));
+        for (Supplier<RsiCalculator> factory : factories) {
+            RsiCalculator calculator = factory.get();
+            calculator.setGapPolicy(GapPolicy.Skip, null);
+            double lastPrice = feed(calculator, new Random(3));
+            // about 2^31 periods without a tick
+            long t = GAP + (10L << 31);
+            calculator.trade(lastPrice, t);
+            Random random = new Random(4);
+            int between = 0;
+            for (int k = 0; k < 100; k++) {
+                t += 10;
+                Interval i = calculator.trade(100 + random.nextInt(10), t);
+                Interval j = calculator.trade(100 + random.nextInt(10), t + 5);
+                if (i == null) {
+                    i = j;
+                }
+                if ((k >= 50) && (i != null)) {
+                    // a wrapped counter left every later RSI at 0
+                    assertTrue((i.getRsi() >= 0) && (i.getRsi() <= 100), "interval " + k);
+                    if ((i.getRsi() > 0) && (i.getRsi() < 100)) {
+                        between++;
+                    }
+                }
+            }
+            assertTrue(between > 0);
+            assertFalse(Double.isNaN(calculator.liveRsi()));
+            assertTrue(calculator.intervals().size() <= LENGTH + 1, "queue is trimmed");
+        }
+    }
+
+    @Test
+    void testSkipDuringWarmUp() {
+        RsiCalculator skip = new RsiCalculator(10, LENGTH);
+        skip.setGapPolicy(GapPolicy.Skip, null);
+        skip.trade(5, 0);
+        skip.trade(6, 5);
+        skip.trade(6, 100);
+        assertNotNull(skip.trade(9, 115));
+        assertEquals(LENGTH, skip.intervals().size());
+    }
+
+    @Test
+    void testSkipIsConstantTime() {
+        RsiCalculator skip = new RsiCalculator(1, LENGTH);
+        skip.setGapPolicy(GapPolicy.Skip, null);
+        double lastPrice = feed(skip, new Random(2));
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            skip.trade(lastPrice, Long.MAX_VALUE / 2);
+        });
+        assertEquals(LENGTH, skip.intervals().size());
+    }
+
+    private void verifyEmit(Supplier<RsiCalculator> factory) {
+        List<Double> synthetic = new ArrayList<>();
+        RsiCalculator emit = factory.get();
+        emit.setGapPolicy(GapPolicy.Emit, i -> synthetic.add(i.getRsi()));
+        RsiCalculator reference = factory.get();
+
+        double lastPrice = feed(emit, new Random(3));
+        feed(reference, new Random(3));
+
+        emit.trade(lastPrice + 3, GAP);
+
+        // the same gap spelled out as one tick per empty period
+        List<Double> flat = new ArrayList<>();
+        reference.trade(lastPrice, 99);
+        for (long end = 109; end < GAP; end += 10) {
+            flat.add(reference.trade(lastPrice, end).getRsi());
+        }
+        assertEquals(113, synthetic.size());
+        assertEquals(flat, synthetic);
+    }
+
+    private static double feed(RsiCalculator calculator, Random random) {
+        double price = 0;
+        for (long t = 0; t < 99; t += 3) {
+            price = 100 + random.nextInt(10);
+            calculator.trade(price, t);
+        }
+        return price;
+    }
+
+}
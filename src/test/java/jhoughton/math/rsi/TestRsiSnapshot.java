@@ -0,0 +1,160 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import jhoughton.math.rsi.RsiCalculator.GapPolicy;
+
+/**
+ * @author jay
+ *
+ */
+class TestRsiSnapshot {
+
+    @Test
+    void testReadersSeeConsistentTuples() throws InterruptedException {
+        RsiSnapshot snapshot = new RsiSnapshot();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong torn = new AtomicLong();
+        AtomicLong reads = new AtomicLong();
+
+        Thread[] readers = new Thread[3];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                RsiSnapshot.View view = new RsiSnapshot.View();
+                long lastVersion = 0;
+                while (running.get()) {
+                    if (snapshot.read(view)) {
+                        long e = view.getEnd();
+                        if (view.getAverageUp() != e || view.getAverageDown() != 2 * e || view.getRs() != 0.5
+                                || view.getRsi() != e / 3d || view.getVersion() < lastVersion) {
+                            torn.incrementAndGet();
+                        }
+                        lastVersion = view.getVersion();
+                        reads.incrementAndGet();
+                    }
+                }
+            });
+            readers[r].start();
+        }
+
+        for (long e = 1; e < 2_000_000; e++) {
+            snapshot.publish(e, e, 2 * e, 0.5, e / 3d);
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertEquals(0, torn.get());
+        assertTrue(reads.get() > 0);
+    }
+
+    @Test
+    void testCalculatorListener() {
+        RsiSnapshot snapshot = new RsiSnapshot();
+        assertTrue(Double.isNaN(snapshot.latestRsi()));
+        assertFalse(snapshot.read(new RsiSnapshot.View()));
+
+        RsiCalculator calculator = new RsiCalculator(10, 2);
+        calculator.setIntervalListener(snapshot);
+        double[] prices = { 1, 3, 2, 5, 4 };
+        Interval last = null;
+        for (int k = 0; k < prices.length; k++) {
+            last = calculator.trade(prices[k], k * 10);
+        }
+        RsiSnapshot.View view = new RsiSnapshot.View();
+        assertTrue(snapshot.read(view));
+        assertEquals(39, view.getEnd());
+        assertEquals(last.getRsi(), view.getRsi());
+        assertEquals(last.getRsi(), snapshot.latestRsi());
+        assertEquals(4, view.getVersion());
+    }
+
+    @Test
+    void testNaNDuringWarmUp() {
+        RsiSnapshot snapshot = new RsiSnapshot();
+        RsiCalculator calculator = new RsiCalculator(10, 2);
+        calculator.setIntervalListener(snapshot);
+        // two ticks per interval so every interval has a change
+        double[] prices = { 1, 3, 3, 2, 2, 5, 5, 4 };
+        for (int k = 0; k < 6; k++) {
+            calculator.trade(prices[k], (k / 2) * 10 + (k % 2) * 5);
+        }
+        // two intervals closed, the third one opened
+        RsiSnapshot.View view = new RsiSnapshot.View();
+        assertTrue(snapshot.read(view));
+        assertEquals(19, view.getEnd());
+        assertTrue(Double.isNaN(snapshot.latestRsi()));
+        assertTrue(Double.isNaN(view.getRs()));
+
+        calculator.trade(prices[6], 30);
+        // changes +2, -1, +3: SMA kickstart 1 / 0.5, then 2 / 0.25, RS 8
+        assertEquals(800 / 9d, snapshot.latestRsi(), 1e-9);
+    }
+
+    @Test
+    void testGapsReachTheListener() {
+        for (GapPolicy policy : GapPolicy.values()) {
+            RsiSnapshot snapshot = new RsiSnapshot();
+            List<Interval> synthetic = new ArrayList<>();
+            RsiCalculator calculator = new RsiCalculator(10, 2);
+            calculator.setGapPolicy(policy, synthetic::add);
+            calculator.setIntervalListener(snapshot);
+            double[] prices = { 1, 3, 3, 2, 2, 5, 5, 4 };
+            for (int k = 0; k < prices.length; k++) {
+                calculator.trade(prices[k], (k / 2) * 10 + (k % 2) * 5);
+            }
+            // closes the interval ending 39, then periods ending 49 to 99 saw no tick
+            calculator.trade(4, 100);
+
+            RsiSnapshot.View view = new RsiSnapshot.View();
+            assertTrue(snapshot.read(view));
+            if (policy == GapPolicy.Merge) {
+                assertEquals(39, view.getEnd());
+                assertEquals(4, view.getVersion());
+                continue;
+            }
+            assertEquals(99, view.getEnd(), policy.name());
+            assertEquals(policy == GapPolicy.Emit ? 10 : 5, view.getVersion(), policy.name());
+            // flat periods decay both averages alike, the RSI stays put
+            double rsi = calculator.intervals().stream().reduce((a, b) -> b).get().getRsi();
+            assertFalse(Double.isNaN(rsi));
+            assertEquals(rsi, view.getRsi());
+            if (policy == GapPolicy.Emit) {
+                assertEquals(synthetic.get(synthetic.size() - 1).getRsi(), view.getRsi());
+            }
+        }
+    }
+}
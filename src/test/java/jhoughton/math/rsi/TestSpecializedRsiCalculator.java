@@ -0,0 +1,142 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import jhoughton.math.rsi.AverageCalculator.Averager;
+import jhoughton.math.rsi.RsiCalculator.GapPolicy;
+import jhoughton.math.rsi.average.CutlerAverage;
+import jhoughton.math.rsi.average.WilderAverage;
+import jhoughton.math.rsi.metrics.RsiMetrics;
+
+/**
+ * @author jay
+ *
+ */
+class TestSpecializedRsiCalculator {
+
+    private static final long PERIOD = 10;
+    private static final int LENGTH = 14;
+
+    @Test
+    void testWilder() {
+        RsiCalculator specialized = Averager.Wilder.newCalculator(PERIOD, LENGTH);
+        assertTrue(specialized instanceof WilderRsiCalculator);
+        for (GapPolicy policy : GapPolicy.values()) {
+            compare(new RsiCalculator(PERIOD, LENGTH, new WilderAverage(LENGTH)),
+                    Averager.Wilder.newCalculator(PERIOD, LENGTH), policy);
+        }
+    }
+
+    @Test
+    void testCutler() {
+        RsiCalculator specialized = Averager.Cutler.newCalculator(PERIOD, LENGTH);
+        assertTrue(specialized instanceof CutlerRsiCalculator);
+        for (GapPolicy policy : GapPolicy.values()) {
+            compare(new RsiCalculator(PERIOD, LENGTH, new CutlerAverage(LENGTH), new CutlerAverage(LENGTH)),
+                    Averager.Cutler.newCalculator(PERIOD, LENGTH), policy);
+        }
+    }
+
+    @Test
+    void testCheckpointsInterchange() {
+        for (Averager averager : Averager.values()) {
+            RsiCalculator specialized = averager.newCalculator(PERIOD, LENGTH);
+            RsiCalculator generic = new RsiCalculator(PERIOD, LENGTH, averager.newAverager(LENGTH),
+                    averager.newAverager(LENGTH));
+            Random random = new Random(14);
+            long t = 0;
+            for (; t < 500; t++) {
+                specialized.trade(100 + random.nextInt(20), t);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(specialized.checkpointSize());
+            specialized.checkpoint(buffer);
+            assertEquals(0, buffer.remaining(), averager.name());
+            buffer.flip();
+            generic.restore(buffer);
+
+            // and back the other way into a fresh specialized calculator
+            buffer = ByteBuffer.allocate(generic.checkpointSize());
+            generic.checkpoint(buffer);
+            buffer.flip();
+            RsiCalculator restored = averager.newCalculator(PERIOD, LENGTH);
+            restored.restore(buffer);
+
+            for (; t < 2_000; t++) {
+                double price = 100 + random.nextInt(20);
+                Interval expected = generic.trade(price, t);
+                Interval actual = restored.trade(price, t);
+                assertEquals(expected == null, actual == null);
+                if (expected != null) {
+                    assertEquals(expected.getRsi(), actual.getRsi(), averager.name());
+                }
+                assertEquals(generic.liveRsi(), restored.liveRsi());
+            }
+        }
+    }
+
+    private static void compare(RsiCalculator reference, RsiCalculator specialized, GapPolicy policy) {
+        List<String> expectedEvents = new ArrayList<>();
+        List<String> actualEvents = new ArrayList<>();
+        reference.setIntervalListener((end, rsi, up, down) -> expectedEvents.add(end + ":" + rsi));
+        specialized.setIntervalListener((end, rsi, up, down) -> actualEvents.add(end + ":" + rsi));
+        reference.setGapPolicy(policy, i -> expectedEvents.add("gap:" + i.getRsi()));
+        specialized.setGapPolicy(policy, i -> actualEvents.add("gap:" + i.getRsi()));
+        RsiMetrics expectedMetrics = new RsiMetrics();
+        RsiMetrics actualMetrics = new RsiMetrics();
+        reference.setMetrics(expectedMetrics);
+        specialized.setMetrics(actualMetrics);
+
+        Random random = new Random(13);
+        long t = 0;
+        for (int k = 0; k < 20_000; k++) {
+            // mostly dense, the odd gap of several periods, during warm-up too
+            t += random.nextInt(200) == 0 ? random.nextInt(40 * (int) PERIOD) : 1;
+            double price = 100 + random.nextInt(20);
+            Interval expected = reference.trade(price, t);
+            Interval actual = specialized.trade(price, t);
+            if (expected == null) {
+                assertNull(actual);
+            } else {
+                assertEquals(expected.getAverageUp(), actual.getAverageUp());
+                assertEquals(expected.getAverageDown(), actual.getAverageDown());
+                assertEquals(expected.getRsi(), actual.getRsi());
+            }
+            assertEquals(reference.liveRsi(), specialized.liveRsi(), policy.name());
+        }
+        assertEquals(expectedEvents, actualEvents, policy.name());
+        assertEquals(expectedMetrics.getIntervals(), actualMetrics.getIntervals());
+        assertEquals(expectedMetrics.getKickstarts(), actualMetrics.getKickstarts());
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.alert;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author jay
+ *
+ */
+class TestCrossingDetector {
+
+    @Test
+    void testCrossings() {
+        List<String> fired = new ArrayList<>();
+        CrossingDetector detector = new CrossingDetector(
+                (id, symbol, threshold, crossing, rsi) -> fired.add(id + ":" + crossing));
+        detector.subscribe(1, 7, 70, Crossing.Above);
+        detector.subscribe(2, 7, 80, Crossing.Above);
+        detector.subscribe(3, 7, 30, Crossing.Below);
+        detector.subscribe(4, 7, 50, Crossing.Below);
+
+        assertEquals(0, detector.update(7, 60)); // first value only primes
+        assertEquals(1, detector.update(7, 70));
+        assertEquals(0, detector.update(7, 75));
+        assertEquals(1, detector.update(7, 85));
+        assertEquals(2, detector.update(7, 20));
+        assertEquals(0, detector.update(8, 50)); // no subscriptions
+        assertEquals(List.of("1:Above", "2:Above", "4:Below", "3:Below"), fired);
+
+        assertTrue(detector.unsubscribe(2, 7));
+        fired.clear();
+        detector.update(7, 90);
+        assertEquals(List.of("1:Above"), fired);
+
+        assertThrows(IllegalArgumentException.class, () -> detector.subscribe(5, 7, 101, Crossing.Above));
+    }
+
+    @Test
+    void testMatchesLinearScan() {
+        Random random = new Random(3);
+        int subscriptions = 2000;
+        double[] thresholds = new double[subscriptions];
+        Crossing[] crossings = new Crossing[subscriptions];
+
+        List<Long> fired = new ArrayList<>();
+        CrossingDetector detector = new CrossingDetector((id, symbol, threshold, crossing, rsi) -> fired.add(id));
+        for (int k = 0; k < subscriptions; k++) {
+            thresholds[k] = random.nextInt(1000) / 10.0;
+            crossings[k] = random.nextBoolean() ? Crossing.Above : Crossing.Below;
+            detector.subscribe(k, 1, thresholds[k], crossings[k]);
+        }
+
+        double previous = Double.NaN;
+        for (int step = 0; step < 1000; step++) {
+            double rsi = random.nextInt(1000) / 10.0;
+            fired.clear();
+            detector.update(1, rsi);
+
+            List<Long> expected = new ArrayList<>();
+            for (int k = 0; k < subscriptions; k++) {
+                double t = thresholds[k];
+                if ((crossings[k] == Crossing.Above) ? (previous < t) && (t <= rsi) : (previous > t) && (t >= rsi)) {
+                    expected.add((long) k);
+                }
+            }
+            fired.sort(null);
+            assertEquals(expected, fired, "step " + step);
+            previous = rsi;
+        }
+    }
+}
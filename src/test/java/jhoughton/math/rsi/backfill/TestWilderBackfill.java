@@ -0,0 +1,90 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.backfill;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.RsiSeries;
+import jhoughton.math.rsi.average.WilderAverage;
+
+/**
+ * @author jay
+ *
+ */
+class TestWilderBackfill {
+
+    private static final int LENGTH = 14;
+
+    @Test
+    void testMatchesSequential() {
+        final int count = 200_000;
+        Random random = new Random(11);
+        double[] open = new double[count];
+        double[] close = new double[count];
+        double price = 100;
+        for (int k = 0; k < count; k++) {
+            open[k] = price;
+            price = Math.max(1, price + random.nextInt(21) - 10);
+            close[k] = price;
+        }
+
+        double[] up = new double[count];
+        double[] down = new double[count];
+        double[] rsi = new double[count];
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            new WilderBackfill(LENGTH, pool, 997).backfill(open, close, count, up, down, rsi);
+        } finally {
+            pool.shutdown();
+        }
+
+        RsiSeries series = new RsiSeries(LENGTH, new WilderAverage(LENGTH));
+        for (int k = 0; k < count; k++) {
+            Interval i = series.close(open[k], close[k]);
+            assertClose(i.getAverageUp(), up[k], k);
+            assertClose(i.getAverageDown(), down[k], k);
+            assertClose(i.getRsi(), rsi[k], k);
+        }
+    }
+
+    @Test
+    void testShortHistory() {
+        double[] open = { 1, 2, 3 };
+        double[] close = { 2, 1, 3 };
+        double[] out = { -1, -1, -1 };
+        new WilderBackfill(LENGTH).backfill(open, close, 3, out, out.clone(), out.clone());
+        assertEquals(0, out[2]);
+    }
+
+    private static void assertClose(double expected, double actual, int index) {
+        assertEquals(expected, actual, WilderBackfill.TOLERANCE * Math.max(1, Math.abs(expected)), "index " + index);
+    }
+
+}
@@ -0,0 +1,125 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.RsiCalculator;
+
+/**
+ * @author jay
+ *
+ */
+class TestRsiPipeline {
+
+    private static final long PERIOD = 10;
+    private static final int LENGTH = 14;
+    private static final int SYMBOLS = 20;
+    private static final int TICKS = 5000;
+
+    @Test
+    void testBusySpin() throws Exception {
+        run(WaitStrategy.busySpin());
+    }
+
+    @Test
+    void testYielding() throws Exception {
+        run(WaitStrategy.yielding());
+    }
+
+    @Test
+    void testParking() throws Exception {
+        run(WaitStrategy.parking(10_000));
+    }
+
+    @Test
+    void testRingBatches() {
+        IntervalRing ring = new IntervalRing(8);
+        for (int k = 0; k < 5; k++) {
+            ring.publish(k, k * 10, 50, 1, 1);
+        }
+        List<Boolean> flags = new ArrayList<>();
+        assertEquals(3, ring.drain((id, end, rsi, up, down, last) -> flags.add(last), 3));
+        assertEquals(2, ring.drain((id, end, rsi, up, down, last) -> flags.add(last), 3));
+        assertEquals(List.of(false, false, true, false, true), flags);
+        assertTrue(ring.isEmpty());
+    }
+
+    private void run(WaitStrategy wait) throws Exception {
+        // only touched by the consumer thread, read after close
+        Map<Long, List<Long>> ends = new HashMap<>();
+        Map<Long, List<Double>> actual = new HashMap<>();
+        int[] batches = new int[1];
+        RsiPipeline pipeline = new RsiPipeline(3, 64, id -> new RsiCalculator(PERIOD, LENGTH),
+                (id, end, rsi, up, down, endOfBatch) -> {
+                    ends.computeIfAbsent(id, k -> new ArrayList<>()).add(end);
+                    actual.computeIfAbsent(id, k -> new ArrayList<>()).add(rsi);
+                    if (endOfBatch) {
+                        batches[0]++;
+                    }
+                }, wait);
+
+        RsiCalculator[] reference = new RsiCalculator[SYMBOLS];
+        Map<Long, List<Long>> expectedEnds = new HashMap<>();
+        Map<Long, List<Double>> expected = new HashMap<>();
+        for (int s = 0; s < SYMBOLS; s++) {
+            reference[s] = new RsiCalculator(PERIOD, LENGTH);
+        }
+
+        pipeline.start();
+        ByteBuffer frame = ByteBuffer.allocate(TickDecoder.BINARY_FRAME).order(ByteOrder.LITTLE_ENDIAN);
+        Random random = new Random(7);
+        for (long t = 0; t < TICKS; t++) {
+            long s = random.nextInt(SYMBOLS);
+            double price = 100 + random.nextInt(20);
+            frame.clear();
+            frame.putLong(t).putDouble(price).putLong(s).flip();
+            pipeline.publish(frame);
+
+            long end = reference[(int) s].getExpectedEnd();
+            Interval i = reference[(int) s].trade(price, t);
+            if (i != null) {
+                expectedEnds.computeIfAbsent(s, k -> new ArrayList<>()).add(end);
+                expected.computeIfAbsent(s, k -> new ArrayList<>()).add(i.getRsi());
+            }
+        }
+        pipeline.close();
+
+        assertEquals(expectedEnds, ends);
+        assertEquals(expected, actual);
+        assertTrue(batches[0] > 0);
+    }
+}
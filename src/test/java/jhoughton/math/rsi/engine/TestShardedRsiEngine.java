@@ -0,0 +1,157 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.RsiCalculator;
+import jhoughton.math.rsi.metrics.RsiMetrics;
+
+/**
+ * @author jay
+ *
+ */
+class TestShardedRsiEngine {
+
+    private static final long PERIOD = 10;
+    private static final int LENGTH = 14;
+    private static final int SYMBOLS = 50;
+
+    @Test
+    void testMatchesSingleCalculators() throws Exception {
+        Map<Long, List<Double>> actual = new ConcurrentHashMap<>();
+        ShardedRsiEngine engine = new ShardedRsiEngine(4, 64, id -> new RsiCalculator(PERIOD, LENGTH),
+                (id, end, i) -> actual.computeIfAbsent(id, k -> new ArrayList<>()).add(i.getRsi()));
+
+        RsiCalculator[] reference = new RsiCalculator[SYMBOLS];
+        List<List<Double>> expected = new ArrayList<>();
+        for (int s = 0; s < SYMBOLS; s++) {
+            reference[s] = new RsiCalculator(PERIOD, LENGTH);
+            expected.add(new ArrayList<>());
+        }
+
+        engine.start();
+        Random random = new Random(42);
+        for (long t = 0; t < 2000; t++) {
+            int s = random.nextInt(SYMBOLS);
+            double price = 100 + random.nextInt(20);
+            engine.trade(s, price, t);
+            Interval i = reference[s].trade(price, t);
+            if (i != null) {
+                expected.get(s).add(i.getRsi());
+            }
+        }
+        engine.close();
+
+        for (int s = 0; s < SYMBOLS; s++) {
+            assertEquals(expected.get(s), actual.getOrDefault((long) s, new ArrayList<>()), "symbol " + s);
+        }
+    }
+
+    @Test
+    void testRejectsTicksWhenNotRunning() {
+        ShardedRsiEngine engine = new ShardedRsiEngine(2, 4, id -> new RsiCalculator(PERIOD, LENGTH),
+                (id, end, i) -> {});
+        assertThrows(IllegalStateException.class, () -> engine.trade(1, 100, 0));
+        try (ShardedRsiEngine running = engine) {
+            running.start();
+            for (long t = 0; t < 100; t++) {
+                running.trade(1, 100, t);
+            }
+        }
+        assertThrows(IllegalStateException.class, () -> engine.trade(1, 100, 100));
+    }
+
+    @Test
+    void testCloseWhileTrading() throws Exception {
+        for (int round = 0; round < 10; round++) {
+            // a tiny ring, so late feeds also hit the full-ring wait
+            ShardedRsiEngine engine = new ShardedRsiEngine(2, 4, id -> new RsiCalculator(PERIOD, LENGTH),
+                    (id, end, i) -> {});
+            RsiMetrics[] metrics = engine.instrument();
+            engine.start();
+            AtomicLong accepted = new AtomicLong();
+            Thread[] feeds = new Thread[2];
+            for (int f = 0; f < feeds.length; f++) {
+                final long symbolId = f;
+                feeds[f] = new Thread(() -> {
+                    try {
+                        for (long t = 0;; t++) {
+                            engine.trade(symbolId, 100 + (t % 7), t);
+                            accepted.incrementAndGet();
+                        }
+                    } catch (IllegalStateException e) {
+                        // closed
+                    }
+                });
+                feeds[f].start();
+            }
+            while (accepted.get() < 100) {
+                Thread.onSpinWait();
+            }
+            engine.close();
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                for (Thread feed : feeds) {
+                    feed.join();
+                }
+            });
+            long processed = 0;
+            for (RsiMetrics m : metrics) {
+                processed += m.getTicks();
+            }
+            assertEquals(accepted.get(), processed, "round " + round);
+        }
+    }
+
+    @Test
+    void testSymbolTable() {
+        SymbolTable<String> table = new SymbolTable<>();
+        for (long k = -500; k < 500; k++) {
+            assertNull(table.put(k * 31, Long.toString(k)));
+        }
+        assertEquals(1000, table.size());
+        for (long k = -500; k < 500; k++) {
+            assertEquals(Long.toString(k), table.get(k * 31));
+        }
+        assertNull(table.get(7));
+        String created = table.computeIfAbsent(7, Long::toString);
+        assertSame(created, table.computeIfAbsent(7, k -> "other"));
+    }
+
+}
@@ -0,0 +1,186 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.flow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.RsiCalculator;
+
+/**
+ * @author jay
+ *
+ */
+class TestRsiProcessor {
+
+    private static final long PERIOD = 10;
+    private static final int LENGTH = 14;
+
+    @Test
+    void testMatchesCalculatorsUnderBackpressure() throws Exception {
+        RsiProcessor processor = new RsiProcessor(id -> new RsiCalculator(PERIOD, LENGTH), 16, false);
+        List<Double> actual = new ArrayList<>();
+        CountDownLatch complete = new CountDownLatch(1);
+        int[] maxBuffered = new int[1];
+        processor.subscribe(new Flow.Subscriber<RsiEvent>() {
+            Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(RsiEvent item) {
+                actual.add(item.getRsi());
+                maxBuffered[0] = Math.max(maxBuffered[0], processor.buffered());
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {}
+
+            @Override
+            public void onComplete() {
+                complete.countDown();
+            }
+        });
+
+        RsiCalculator reference = new RsiCalculator(PERIOD, LENGTH);
+        List<Double> expected = new ArrayList<>();
+        try (SubmissionPublisher<Tick> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(processor);
+            Random random = new Random(11);
+            for (long t = 0; t < 3000; t++) {
+                double price = 100 + random.nextInt(20);
+                publisher.submit(new Tick(1, price, t));
+                Interval i = reference.trade(price, t);
+                if (i != null) {
+                    expected.add(i.getRsi());
+                }
+            }
+        }
+        assertTrue(complete.await(10, TimeUnit.SECONDS));
+        assertEquals(expected, actual);
+        assertTrue(maxBuffered[0] <= 16);
+    }
+
+    @Test
+    void testCoalesceKeepsLatestPerSymbol() {
+        RsiProcessor processor = new RsiProcessor(id -> new RsiCalculator(PERIOD, LENGTH), 8, true);
+        long[] upstreamDemand = new long[1];
+        processor.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                upstreamDemand[0] += n;
+            }
+
+            @Override
+            public void cancel() {}
+        });
+
+        List<RsiEvent> received = new ArrayList<>();
+        Flow.Subscription[] downstream = new Flow.Subscription[1];
+        processor.subscribe(new Flow.Subscriber<RsiEvent>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                downstream[0] = subscription;
+            }
+
+            @Override
+            public void onNext(RsiEvent item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {}
+
+            @Override
+            public void onComplete() {}
+        });
+
+        // no downstream demand, upstream keeps sending as far as it is allowed
+        RsiCalculator[] reference = { new RsiCalculator(PERIOD, LENGTH), new RsiCalculator(PERIOD, LENGTH) };
+        Map<Long, Double> latest = new HashMap<>();
+        long sent = 0;
+        for (long t = 0; t < 400; t++) {
+            for (int s = 0; s < 2; s++) {
+                double price = 100 + ((t * (s + 3)) % 7);
+                assertTrue(sent < upstreamDemand[0], "upstream demand exceeded");
+                processor.onNext(new Tick(s, price, t));
+                sent++;
+                Interval i = reference[s].trade(price, t);
+                if (i != null) {
+                    latest.put((long) s, i.getRsi());
+                }
+            }
+        }
+        assertEquals(2, processor.buffered());
+        assertTrue(processor.getCoalesced() > 0);
+
+        downstream[0].request(Long.MAX_VALUE);
+        assertEquals(2, received.size());
+        for (RsiEvent e : received) {
+            assertEquals(latest.get(e.getSymbolId()), e.getRsi());
+        }
+    }
+
+    @Test
+    void testBoundedWithoutCoalescing() {
+        RsiProcessor processor = new RsiProcessor(id -> new RsiCalculator(1, LENGTH), 8, false);
+        long[] upstreamDemand = new long[1];
+        processor.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                upstreamDemand[0] += n;
+            }
+
+            @Override
+            public void cancel() {}
+        });
+        // every tick closes an interval, nobody is subscribed
+        long t = 0;
+        while (t < upstreamDemand[0]) {
+            processor.onNext(new Tick(1, 100 + (t % 3), t));
+            t++;
+        }
+        // the first tick only opens, one slot stays free which is less than a batch
+        assertEquals(8, t);
+        assertEquals(7, processor.buffered());
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.gateway;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.RsiCalculator;
+import jhoughton.math.rsi.engine.ShardedRsiEngine;
+import jhoughton.math.rsi.gateway.TickGateway.Transport;
+
+/**
+ * @author jay
+ *
+ */
+class TestTickGateway {
+
+    private static final long PERIOD = 10;
+    private static final int LENGTH = 14;
+    private static final int SYMBOLS = 8;
+    private static final int TICKS = 4000;
+
+    @Test
+    void testTcp() throws Exception {
+        run(Transport.Tcp);
+    }
+
+    @Test
+    void testUdp() throws Exception {
+        run(Transport.Udp);
+    }
+
+    @Test
+    void testSlowSubscriberIsDropped() throws Exception {
+        InetSocketAddress loopback = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        TickGateway gateway = new TickGateway(Transport.Tcp, loopback, loopback, Executors.defaultThreadFactory(), 16);
+        gateway.start((symbol, price, timestamp) -> {});
+        Interval interval = new Interval(100, 101);
+        try (SocketChannel stalled = SocketChannel.open(gateway.getSubscriberAddress())) {
+            while (gateway.subscriberCount() == 0) {
+                Thread.sleep(1);
+            }
+            // never read, publishing must not block once its socket is full
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                for (long end = 0; gateway.subscriberCount() > 0; end++) {
+                    gateway.onInterval(1, end, interval);
+                }
+            });
+            assertEquals(1, gateway.getSlowSubscribers());
+            // dropped on the gateway's side only
+            assertTrue(stalled.isConnected());
+        } finally {
+            gateway.close();
+        }
+    }
+
+    private void run(Transport transport) throws Exception {
+        InetSocketAddress loopback = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        TickGateway gateway = new TickGateway(transport, loopback, loopback);
+        ShardedRsiEngine engine = new ShardedRsiEngine(2, 1024, id -> new RsiCalculator(PERIOD, LENGTH), gateway);
+        engine.start();
+        gateway.start(engine);
+
+        // expected intervals per symbol
+        Random random = new Random(4);
+        long[] symbols = new long[TICKS];
+        double[] prices = new double[TICKS];
+        RsiCalculator[] reference = new RsiCalculator[SYMBOLS];
+        for (int s = 0; s < SYMBOLS; s++) {
+            reference[s] = new RsiCalculator(PERIOD, LENGTH);
+        }
+        Map<Long, List<String>> expected = new HashMap<>();
+        int intervals = 0;
+        for (int t = 0; t < TICKS; t++) {
+            symbols[t] = random.nextInt(SYMBOLS);
+            prices[t] = 100 + random.nextInt(20);
+            long end = reference[(int) symbols[t]].getExpectedEnd();
+            Interval i = reference[(int) symbols[t]].trade(prices[t], t);
+            if (i != null) {
+                expected.computeIfAbsent(symbols[t], k -> new ArrayList<>()).add(end + ":" + i.getRsi());
+                intervals++;
+            }
+        }
+
+        try (SocketChannel subscriber = SocketChannel.open(gateway.getSubscriberAddress())) {
+            while (gateway.subscriberCount() == 0) {
+                Thread.sleep(1);
+            }
+
+            ByteBuffer frames = ByteBuffer.allocateDirect(50 * TickGateway.FRAME).order(ByteOrder.LITTLE_ENDIAN);
+            if (transport == Transport.Tcp) {
+                try (SocketChannel ticks = SocketChannel.open(gateway.getTickAddress())) {
+                    for (int t = 0; t < TICKS; t++) {
+                        frames.putLong(t).putDouble(prices[t]).putLong(symbols[t]);
+                        if (!frames.hasRemaining() || (t == (TICKS - 1))) {
+                            frames.flip();
+                            while (frames.hasRemaining()) {
+                                ticks.write(frames);
+                            }
+                            frames.clear();
+                        }
+                    }
+                }
+            } else {
+                try (DatagramChannel ticks = DatagramChannel.open()) {
+                    ticks.connect(gateway.getTickAddress());
+                    for (int t = 0; t < TICKS; t++) {
+                        frames.putLong(t).putDouble(prices[t]).putLong(symbols[t]);
+                        if (!frames.hasRemaining() || (t == (TICKS - 1))) {
+                            frames.flip();
+                            ticks.write(frames);
+                            frames.clear();
+                            // loopback datagrams are only dropped when the receiver falls behind
+                            while (gateway.getFrames() < (t + 1)) {
+                                Thread.sleep(1);
+                            }
+                        }
+                    }
+                }
+            }
+
+            Map<Long, List<String>> actual = new HashMap<>();
+            ByteBuffer in = ByteBuffer.allocate(intervals * TickGateway.INTERVAL_FRAME).order(ByteOrder.LITTLE_ENDIAN);
+            while (in.hasRemaining()) {
+                subscriber.read(in);
+            }
+            in.flip();
+            while (in.hasRemaining()) {
+                long symbol = in.getLong();
+                long end = in.getLong();
+                double rsi = in.getDouble();
+                in.getDouble();
+                in.getDouble();
+                actual.computeIfAbsent(symbol, k -> new ArrayList<>()).add(end + ":" + rsi);
+            }
+            assertEquals(expected, actual);
+            assertEquals(TICKS, gateway.getFrames());
+        } finally {
+            gateway.close();
+            engine.close();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.indicator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.RsiCalculator;
+import jhoughton.math.rsi.indicator.RsiDivergence.Divergence;
+
+/**
+ * @author jay
+ *
+ */
+class TestIndicators {
+
+    @Test
+    void testSlidingMinMax() {
+        Random random = new Random(1);
+        for (int window : new int[] { 1, 3, 4, 14 }) {
+            SlidingMinMax extremes = new SlidingMinMax(window);
+            List<Double> values = new ArrayList<>();
+            for (int k = 0; k < 500; k++) {
+                double v = random.nextInt(50);
+                values.add(v);
+                extremes.add(v);
+                List<Double> last = values.subList(Math.max(0, values.size() - window), values.size());
+                double min = last.stream().mapToDouble(Double::doubleValue).min().getAsDouble();
+                double max = last.stream().mapToDouble(Double::doubleValue).max().getAsDouble();
+                assertEquals(min, extremes.min(), "window " + window);
+                assertEquals(max, extremes.max(), "window " + window);
+                assertEquals(min, values.get((int) extremes.minIndex()));
+                assertEquals(max, values.get((int) extremes.maxIndex()));
+            }
+        }
+    }
+
+    @Test
+    void testStochasticRsiMatchesRescan() {
+        RsiCalculator calculator = new RsiCalculator(10, 14);
+        StochasticRsi stochastic = new StochasticRsi(14, 3, 3);
+        List<Double> history = new ArrayList<>();
+        List<Double> raws = new ArrayList<>();
+        List<Double> ks = new ArrayList<>();
+        Random random = new Random(2);
+        int checked = 0;
+        for (long t = 0; t < 10_000; t++) {
+            Interval i = calculator.trade(100 + random.nextInt(20), t);
+            if ((i == null) || !i.hasSmma()) {
+                continue;
+            }
+            double value = stochastic.update(i);
+            history.add(i.getRsi());
+            if (history.size() < 14) {
+                assertTrue(Double.isNaN(value));
+                continue;
+            }
+            List<Double> window = history.subList(history.size() - 14, history.size());
+            double low = window.stream().mapToDouble(Double::doubleValue).min().getAsDouble();
+            double high = window.stream().mapToDouble(Double::doubleValue).max().getAsDouble();
+            double raw = (100 * (i.getRsi() - low)) / (high - low);
+            assertEquals(raw, value, 1e-9);
+            raws.add(raw);
+            if (raws.size() >= 3) {
+                double k = (raws.get(raws.size() - 1) + raws.get(raws.size() - 2) + raws.get(raws.size() - 3)) / 3;
+                assertEquals(k, stochastic.getK(), 1e-9);
+                ks.add(k);
+            }
+            if (ks.size() >= 3) {
+                double d = (ks.get(ks.size() - 1) + ks.get(ks.size() - 2) + ks.get(ks.size() - 3)) / 3;
+                assertEquals(d, stochastic.getD(), 1e-9);
+                checked++;
+            }
+        }
+        assertTrue(checked > 900);
+    }
+
+    @Test
+    void testMovingAverages() {
+        SimpleMovingAverage sma = new SimpleMovingAverage(3);
+        assertTrue(Double.isNaN(sma.add(1)));
+        sma.add(2);
+        assertEquals(2, sma.add(3));
+        assertEquals(3, sma.add(4));
+
+        ExponentialMovingAverage ema = new ExponentialMovingAverage(3);
+        ema.add(1);
+        ema.add(2);
+        assertEquals(2, ema.add(3));
+        assertEquals(3, ema.add(4)); // 2 + 0.5 * (4 - 2)
+    }
+
+    @Test
+    void testSignalLine() {
+        RsiSignalLine line = new RsiSignalLine(3);
+        line.update(50);
+        line.update(50);
+        assertEquals(0, line.update(50));
+        assertEquals(1, line.update(60));
+        assertEquals(0, line.update(61));
+        assertEquals(-1, line.update(40));
+        assertEquals(line.getRsi() - line.getSignal(), line.getHistogram());
+    }
+
+    @Test
+    void testDivergence() {
+        RsiDivergence divergence = new RsiDivergence(3);
+        divergence.update(100, 40);
+        divergence.update(101, 45);
+        divergence.update(102, 50);
+        // lower close than any of the last 3, RSI above the 40 at the previous low
+        assertEquals(Divergence.Bullish, divergence.update(99, 42));
+        assertEquals(Divergence.None, divergence.update(100, 30));
+        // higher close than the last 3, RSI below the 50 at the previous high
+        assertEquals(Divergence.Bearish, divergence.update(103, 45));
+        assertEquals(Divergence.None, divergence.update(104, 60));
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.RsiCalculator;
+
+/**
+ * @author jay
+ *
+ */
+class TestCsvTickImporter {
+
+    private static final long PERIOD = 100;
+    private static final int LENGTH = 14;
+
+    @TempDir
+    Path dir;
+
+    private static ByteBuffer ascii(String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static double parseDouble(String s) {
+        return CsvTickImporter.parseDouble(ascii(s), 0, s.length());
+    }
+
+    private static long parseLong(String s) {
+        return CsvTickImporter.parseLong(ascii(s), 0, s.length());
+    }
+
+    @Test
+    void testParseDoubleMatchesJdk() {
+        String[] fixed = { "0", "-0", "1", "+2.5", "100.25", ".5", "5.", "0.1", "123456789.123456", "9007199254740993",
+                "1e3", "-1.5E-7", "NaN", "-Infinity", "0.0000000000000000000000001", "99999999999999999999.5" };
+        for (String s : fixed) {
+            assertEquals(Double.doubleToLongBits(Double.parseDouble(s)), Double.doubleToLongBits(parseDouble(s)), s);
+        }
+        Random random = new Random(25);
+        for (int k = 0; k < 100_000; k++) {
+            String s = decimal(random);
+            assertEquals(Double.parseDouble(s), parseDouble(s), s);
+        }
+        for (String bad : new String[] { "", "-", ".", "1.2.3", "12x" }) {
+            assertThrows(NumberFormatException.class, () -> parseDouble(bad), bad);
+        }
+    }
+
+    @Test
+    void testParseLong() {
+        for (long v : new long[] { 0, 7, -7, 1_700_000_000_000_000_000L, Long.MAX_VALUE, Long.MIN_VALUE }) {
+            assertEquals(v, parseLong(Long.toString(v)));
+        }
+        assertEquals(42, parseLong("+42"));
+        for (String bad : new String[] { "", "-", "1.5", "9223372036854775808", "-9223372036854775809" }) {
+            assertThrows(NumberFormatException.class, () -> parseLong(bad), bad);
+        }
+    }
+
+    @Test
+    void testSymbolId() {
+        assertEquals(42, CsvTickImporter.symbolId("42"));
+        assertEquals(0x4141504CL, CsvTickImporter.symbolId("AAPL"));
+        assertEquals(0x42524B2E42L, CsvTickImporter.symbolId("BRK.B"));
+        assertThrows(NumberFormatException.class, () -> CsvTickImporter.symbolId("VERYLONGNAME"));
+    }
+
+    @Test
+    void testImportMatchesSequentialFeed() throws IOException {
+        String[] names = { "AAPL", "MSFT", "7", "BRK.B", "X" };
+        Random random = new Random(26);
+        StringBuilder csv = new StringBuilder("timestamp,price,symbol\n");
+        Map<Long, RsiCalculator> reference = new HashMap<>();
+        Map<Long, List<String>> expected = new HashMap<>();
+        int n = 20_000;
+        long t = 1_000;
+        for (int k = 0; k < n; k++) {
+            t += random.nextInt(20);
+            String name = names[random.nextInt(names.length)];
+            String price = random.nextInt(50) == 0 ? (1 + random.nextInt(9)) + "e1"
+                    : (90 + random.nextInt(20)) + "." + random.nextInt(100);
+            csv.append(t).append(',').append(price).append(',').append(name);
+            csv.append(random.nextInt(10) == 0 ? "\r\n" : "\n");
+            if (random.nextInt(100) == 0) {
+                csv.append('\n');
+            }
+            long id = CsvTickImporter.symbolId(name);
+            RsiCalculator calculator = reference.computeIfAbsent(id, s -> new RsiCalculator(PERIOD, LENGTH));
+            long end = calculator.getExpectedEnd();
+            Interval i = calculator.trade(Double.parseDouble(price), t);
+            if (i != null) {
+                expected.computeIfAbsent(id, s -> new ArrayList<>()).add(end + ":" + i.getRsi());
+            }
+        }
+        Path file = Files.write(dir.resolve("ticks.csv"), csv.toString().getBytes(StandardCharsets.US_ASCII));
+
+        for (int threads : new int[] { 1, 3 }) {
+            for (int chunkSize : new int[] { 64, 4096, CsvTickImporter.DEFAULT_CHUNK_SIZE }) {
+                Map<Long, List<String>> actual = new HashMap<>();
+                try (CsvTickImporter importer = new CsvTickImporter(threads, chunkSize,
+                        s -> new RsiCalculator(PERIOD, LENGTH), (id, end, i) -> {
+                            synchronized (actual) {
+                                actual.computeIfAbsent(id, s -> new ArrayList<>()).add(end + ":" + i.getRsi());
+                            }
+                        })) {
+                    assertEquals(n, importer.importFile(file));
+                    assertEquals(expected, actual, threads + " threads, chunk " + chunkSize);
+                    for (Map.Entry<Long, RsiCalculator> e : reference.entrySet()) {
+                        assertEquals(e.getValue().liveRsi(), importer.getCalculator(e.getKey()).liveRsi());
+                    }
+                    assertNull(importer.getCalculator(12345));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testMissingSymbolAndNoTrailingNewline() throws IOException {
+        Path file = Files.write(dir.resolve("single.csv"), "0,10\n50,11\n100,12\n150,13\n200,12.5".getBytes());
+        List<Long> ends = new ArrayList<>();
+        try (CsvTickImporter importer = new CsvTickImporter(2, 8, s -> new RsiCalculator(PERIOD, LENGTH),
+                (id, end, i) -> ends.add(id * 1000 + end))) {
+            assertEquals(5, importer.importFile(file));
+            assertEquals(List.of(99L, 199L), ends);
+            assertEquals(5, importer.getTicks());
+            assertTrue(importer.getCalculator(0) != null);
+        }
+    }
+
+    @Test
+    void testMalformedLine() throws IOException {
+        Path file = Files.write(dir.resolve("bad.csv"), "0,10,A\n50,abc,A\n".getBytes());
+        try (CsvTickImporter importer = new CsvTickImporter(1, s -> new RsiCalculator(PERIOD, LENGTH),
+                (id, end, i) -> {
+                })) {
+            IOException e = assertThrows(IOException.class, () -> importer.importFile(file));
+            assertTrue(e.getMessage().contains("byte 10"), e.getMessage());
+        }
+    }
+
+    /**
+     * @return a random plain decimal with a mix of short and long fractions
+     */
+    private static String decimal(Random random) {
+        long whole = random.nextInt(4) == 0 ? (random.nextLong() >>> 1) >>> random.nextInt(63)
+                : random.nextInt(100_000);
+        StringBuilder s = new StringBuilder();
+        if (random.nextBoolean()) {
+            s.append('-');
+        }
+        s.append(whole);
+        int fraction = random.nextInt(12);
+        if (fraction > 0) {
+            s.append('.');
+            for (int f = 0; f < fraction; f++) {
+                s.append((char) ('0' + random.nextInt(10)));
+            }
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.PrimitiveRsiCalculator;
+import jhoughton.math.rsi.RsiCalculator;
+import jhoughton.math.rsi.RsiSeries;
+import jhoughton.math.rsi.average.CutlerAverage;
+import jhoughton.math.rsi.engine.SymbolTable;
+
+/**
+ * @author jay
+ *
+ */
+class TestRsiCheckpoint {
+
+    private static final int SYMBOLS = 200;
+
+    @TempDir
+    Path dir;
+
+    static RsiCalculator calculator(long symbolId) {
+        return (symbolId % 2 == 0) ? new RsiCalculator(10, 14)
+                : new RsiCalculator(10, 9, new CutlerAverage(9), new CutlerAverage(9));
+    }
+
+    static PrimitiveRsiCalculator primitive(long symbolId) {
+        return new PrimitiveRsiCalculator(10, new RsiSeries(9, new CutlerAverage(9), new CutlerAverage(9)), null);
+    }
+
+    @Test
+    void testRsiCalculatorRoundTrip() throws IOException {
+        SymbolTable<RsiCalculator> running = new SymbolTable<>();
+        Random random = new Random(17);
+        long t = 0;
+        for (; t < 30_000; t++) {
+            running.computeIfAbsent(random.nextInt(SYMBOLS), TestRsiCheckpoint::calculator)
+                    .trade(100 + random.nextInt(10), t);
+        }
+
+        Path file = dir.resolve("rsi.ckpt");
+        RsiCheckpoint.save(file, running);
+        SymbolTable<RsiCalculator> restored = new SymbolTable<>();
+        assertEquals(SYMBOLS, RsiCheckpoint.load(file, restored, TestRsiCheckpoint::calculator));
+
+        for (; t < 60_000; t++) {
+            int s = random.nextInt(SYMBOLS);
+            double price = 100 + random.nextInt(10);
+            Interval expected = running.get(s).trade(price, t);
+            Interval actual = restored.get(s).trade(price, t);
+            if (expected == null) {
+                assertNull(actual);
+            } else {
+                assertEquals(expected.getAverageUp(), actual.getAverageUp());
+                assertEquals(expected.getAverageDown(), actual.getAverageDown());
+                assertEquals(expected.getRsi(), actual.getRsi());
+            }
+        }
+    }
+
+    @Test
+    void testPrimitiveRoundTrip() throws IOException {
+        SymbolTable<PrimitiveRsiCalculator> running = new SymbolTable<>();
+        Random random = new Random(19);
+        long t = 0;
+        for (; t < 5_000; t++) {
+            running.computeIfAbsent(random.nextInt(20), TestRsiCheckpoint::primitive).trade(random.nextInt(10), t);
+        }
+
+        Path file = dir.resolve("primitive.ckpt");
+        RsiCheckpoint.save(file, running);
+        SymbolTable<PrimitiveRsiCalculator> restored = new SymbolTable<>();
+        RsiCheckpoint.load(file, restored, TestRsiCheckpoint::primitive);
+
+        for (; t < 10_000; t++) {
+            int s = random.nextInt(20);
+            double price = random.nextInt(10);
+            Interval expected = running.get(s).trade(price, t);
+            Interval actual = restored.get(s).trade(price, t);
+            if (expected == null) {
+                assertNull(actual);
+            } else {
+                assertEquals(expected.getRsi(), actual.getRsi());
+            }
+        }
+    }
+
+    @Test
+    void testRejectsDifferentConfiguration() throws IOException {
+        SymbolTable<RsiCalculator> running = new SymbolTable<>();
+        running.put(1, new RsiCalculator(10, 14));
+        running.get(1).trade(1, 0);
+        Path file = dir.resolve("mismatch.ckpt");
+        RsiCheckpoint.save(file, running);
+        assertThrows(IllegalArgumentException.class,
+                () -> RsiCheckpoint.load(file, new SymbolTable<>(), id -> new RsiCalculator(10, 21)));
+    }
+
+}
@@ -0,0 +1,180 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author jay
+ *
+ */
+class TestRsiHistory {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRangeQueries() throws Exception {
+        try (RsiHistory history = new RsiHistory(dir, 100, 4)) {
+            for (int k = 0; k < 1000; k++) {
+                long end = (k * 10) + 9;
+                history.append(1, end, k, k + 1, k % 100);
+                history.append(2, end, -k, 0, 50);
+            }
+
+            List<Long> ends = new ArrayList<>();
+            List<Double> rsi = new ArrayList<>();
+            assertEquals(31, history.query(1, 2500, 2809, (end, r, up, down) -> {
+                ends.add(end);
+                rsi.add(r);
+            }));
+            assertEquals(2509L, ends.get(0));
+            assertEquals(2809L, ends.get(30));
+            assertEquals(50.0, rsi.get(0));
+
+            long reads = history.getSegmentReads();
+            history.query(1, 2500, 2809, (end, r, up, down) -> {});
+            assertEquals(reads, history.getSegmentReads(), "repeated query is served from memory");
+
+            // the open tail segment is in memory
+            assertEquals(1, history.query(2, 9999, Long.MAX_VALUE, (end, r, up, down) -> {}));
+            assertEquals(0, history.query(3, 0, Long.MAX_VALUE, (end, r, up, down) -> {}));
+            assertEquals(2, history.loadedSymbols(), "misses are not cached");
+
+            assertThrows(IllegalArgumentException.class, () -> history.append(1, 9, 0, 0, 0));
+        }
+
+        // stray files next to the segments don't matter, only the index does
+        Files.write(dir.resolve("1").resolve("00000042.seg"), new byte[] { 1, 2, 3 });
+        Files.write(dir.resolve("1").resolve("old.seg"), new byte[0]);
+
+        // reopen: a cold query reads the index, the tail's header and the one
+        // segment
+        try (RsiHistory history = new RsiHistory(dir, 100, 2)) {
+            assertEquals(1, history.query(1, 5005, 5015, (end, r, up, down) -> {}));
+            assertEquals(1, history.getSegmentReads());
+        }
+        try (RsiHistory history = new RsiHistory(dir, 100, 2)) {
+            List<Double> ups = new ArrayList<>();
+            assertEquals(1000, history.query(1, Long.MIN_VALUE, Long.MAX_VALUE, (end, r, up, down) -> ups.add(up)));
+            for (int k = 0; k < 1000; k++) {
+                assertEquals(k, ups.get(k));
+            }
+            assertEquals(1, history.query(1, 5005, 5015, (end, r, up, down) -> {}));
+            history.append(1, 100_000, 1, 1, 1);
+            assertEquals(1, history.query(1, 10_000, Long.MAX_VALUE, (end, r, up, down) -> {}));
+        }
+    }
+
+    @Test
+    void testInterruptedSeal() throws Exception {
+        try (RsiHistory history = new RsiHistory(dir, 10, 4)) {
+            for (int k = 0; k < 20; k++) {
+                history.append(7, k, k, k, k);
+            }
+        }
+        // the second segment is full, stop half way through recording it
+        Path index = dir.resolve("7").resolve(RsiHistory.INDEX);
+        assertEquals(RecordFile.HEADER + RsiHistory.INDEX_STRIDE, Files.size(index));
+        Files.write(index, new byte[5], StandardOpenOption.APPEND);
+
+        try (RsiHistory history = new RsiHistory(dir, 10, 4)) {
+            List<Long> ends = new ArrayList<>();
+            history.append(7, 20, 0, 0, 0);
+            assertEquals(21, history.query(7, 0, 100, (end, r, up, down) -> ends.add(end)));
+            for (int k = 0; k <= 20; k++) {
+                assertEquals(k, ends.get(k));
+            }
+        }
+        assertEquals(RecordFile.HEADER + (2 * RsiHistory.INDEX_STRIDE), Files.size(index));
+    }
+
+    @Test
+    void testBoundedMemory() throws Exception {
+        final int symbols = 50;
+        try (RsiHistory history = new RsiHistory(dir, 8, 5)) {
+            for (int k = 0; k < 20; k++) {
+                for (long symbolId = 0; symbolId < symbols; symbolId++) {
+                    history.append(symbolId, k, k, symbolId, k);
+                    assertTrue(history.residentSegments() <= 5);
+                }
+            }
+            for (long symbolId = 0; symbolId < symbols; symbolId++) {
+                List<Long> ends = new ArrayList<>();
+                final long expected = symbolId;
+                assertEquals(20, history.query(symbolId, 0, 100, (end, r, up, down) -> {
+                    assertEquals(expected, down);
+                    ends.add(end);
+                }));
+                assertEquals(19L, ends.get(19));
+                assertTrue(history.residentSegments() <= 5);
+            }
+        }
+        try (RsiHistory history = new RsiHistory(dir, 8, 1)) {
+            for (long symbolId = 0; symbolId < symbols; symbolId++) {
+                assertEquals(20, history.query(symbolId, 0, 100, (end, r, up, down) -> {}));
+                assertEquals(1, history.residentSegments());
+            }
+        }
+    }
+
+    @Test
+    void testReopenWithOtherCapacity() throws Exception {
+        try (RsiHistory history = new RsiHistory(dir, 10, 4)) {
+            for (int k = 0; k < 15; k++) {
+                history.append(3, k, k, k, k);
+            }
+        }
+        // the tail holds 5 of 10, keeps filling to 10 before a 4 segment starts
+        try (RsiHistory history = new RsiHistory(dir, 4, 4)) {
+            for (int k = 15; k < 30; k++) {
+                history.append(3, k, k, k, k);
+            }
+        }
+        try (RsiHistory history = new RsiHistory(dir, 20, 4)) {
+            for (int k = 30; k < 50; k++) {
+                history.append(3, k, k, k, k);
+            }
+            List<Long> ends = new ArrayList<>();
+            assertEquals(50, history.query(3, 0, 100, (end, r, up, down) -> ends.add(end)));
+            for (int k = 0; k < 50; k++) {
+                assertEquals(k, ends.get(k));
+            }
+        }
+        Path index = dir.resolve("3").resolve(RsiHistory.INDEX);
+        // 10, 10, 4, 4, 4 sealed then 18 of 20
+        assertEquals(RecordFile.HEADER + (5 * RsiHistory.INDEX_STRIDE), Files.size(index));
+    }
+}
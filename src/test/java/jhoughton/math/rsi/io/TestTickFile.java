@@ -0,0 +1,126 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.PrimitiveRsiCalculator;
+import jhoughton.math.rsi.RsiCalculator;
+import jhoughton.math.rsi.average.WilderAverage;
+
+/**
+ * @author jay
+ *
+ */
+class TestTickFile {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRoundTripThroughCalculator() throws IOException {
+        Path ticks = dir.resolve("ticks.bin");
+        Path intervals = dir.resolve("intervals.bin");
+
+        RsiCalculator reference = new RsiCalculator(10, 14);
+        // capture at close time, the kickstart later back-fills the SMA into interval #length
+        List<double[]> expected = new ArrayList<>();
+        Random random = new Random(5);
+        try (TickFileWriter writer = new TickFileWriter(ticks, false)) {
+            for (long t = 0; t < 10_000; t += 1 + random.nextInt(4)) {
+                double price = 100 + random.nextInt(9);
+                writer.write(price, t);
+                Interval i = reference.trade(price, t);
+                if (i != null) {
+                    expected.add(new double[] { i.getAverageUp(), i.getAverageDown(), i.getRs(), i.getRsi() });
+                }
+            }
+        }
+
+        try (TickFileReader reader = new TickFileReader(ticks);
+                IntervalFileWriter writer = new IntervalFileWriter(intervals, false)) {
+            assertFalse(reader.hasSymbols());
+            PrimitiveRsiCalculator calculator = new PrimitiveRsiCalculator(10, 14, new WilderAverage(14), writer);
+            reader.replay((symbol, price, timestamp) -> calculator.trade(price, timestamp));
+        }
+
+        List<double[]> actual = new ArrayList<>();
+        try (IntervalFileReader reader = new IntervalFileReader(intervals)) {
+            assertEquals(expected.size(), reader.count());
+            reader.replay((symbol, end, up, down, rs, rsi) -> actual.add(new double[] { end, up, down, rs, rsi }));
+        }
+        for (int k = 0; k < expected.size(); k++) {
+            double[] values = expected.get(k);
+            double[] record = actual.get(k);
+            assertEquals(values[0], record[1]);
+            assertEquals(values[1], record[2]);
+            assertEquals(values[3], record[4]);
+            if (k >= 14) {
+                assertEquals(values[2], record[3]);
+            }
+        }
+    }
+
+    @Test
+    void testSymbols() throws IOException {
+        Path ticks = dir.resolve("symbols.bin");
+        try (TickFileWriter writer = new TickFileWriter(ticks, true)) {
+            for (int k = 0; k < 100_000; k++) {
+                writer.trade(k % 7, k / 2d, k);
+            }
+        }
+        long[] sums = new long[7];
+        try (TickFileReader reader = new TickFileReader(ticks)) {
+            assertTrue(reader.hasSymbols());
+            assertEquals(100_000, reader.count());
+            reader.replay((symbol, price, timestamp) -> {
+                assertEquals(timestamp / 2d, price);
+                sums[(int) symbol] += timestamp;
+            });
+        }
+        assertEquals(714264285L, sums[0]);
+    }
+
+    @Test
+    void testRejectsOtherFiles() throws IOException {
+        Path other = dir.resolve("other.bin");
+        Files.write(other, new byte[32]);
+        assertThrows(IOException.class, () -> new TickFileReader(other));
+    }
+
+}
@@ -0,0 +1,114 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+import jhoughton.math.rsi.RsiCalculator;
+import jhoughton.math.rsi.engine.ShardedRsiEngine;
+
+/**
+ * @author jay
+ *
+ */
+class TestRsiMetrics {
+
+    @Test
+    void testCalculatorCounters() {
+        RsiMetrics metrics = new RsiMetrics();
+        RsiCalculator calculator = new RsiCalculator(10, 14);
+        calculator.setMetrics(metrics);
+        int intervals = 0;
+        for (long t = 0; t < 1000; t++) {
+            if (calculator.trade(100 + (t % 7), t) != null) {
+                intervals++;
+            }
+        }
+        calculator.trade(100, 5); // late
+        assertEquals(1001, metrics.getTicks());
+        assertEquals(intervals, metrics.getIntervals());
+        assertEquals(1, metrics.getLateTicks());
+        assertEquals(1, metrics.getKickstarts());
+
+        metrics.reset();
+        assertEquals(0, metrics.getTicks());
+    }
+
+    @Test
+    void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(0.99));
+        for (int k = 0; k < 99; k++) {
+            histogram.record(100); // bucket [64,128)
+        }
+        histogram.record(5000); // bucket [4096,8192)
+        histogram.record(0);
+        assertEquals(101, histogram.count());
+        assertEquals(99, histogram.bucket(7));
+        assertEquals(127, histogram.percentile(0.5));
+        assertEquals(127, histogram.percentile(0.98));
+        assertEquals(8191, histogram.percentile(1));
+        assertEquals((99 * 100 + 5000) / 101.0, histogram.mean(), 1e-9);
+    }
+
+    @Test
+    void testEngineMBeans() throws Exception {
+        ShardedRsiEngine engine = new ShardedRsiEngine(2, 64, id -> new RsiCalculator(10, 14), (id, end, i) -> {});
+        RsiMetrics[] metrics = engine.instrument();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName[] names = new ObjectName[metrics.length];
+        for (int s = 0; s < metrics.length; s++) {
+            names[s] = metrics[s].register(server, "test-shard-" + s);
+        }
+        try {
+            engine.start();
+            for (long t = 0; t < 1000; t++) {
+                engine.trade(t % 10, 100 + (t % 3), t);
+            }
+            engine.close();
+
+            long ticks = 0;
+            long latencies = 0;
+            for (ObjectName name : names) {
+                ticks += (Long) server.getAttribute(name, "Ticks");
+                latencies += (Long) server.getAttribute(name, "LatencyCount");
+            }
+            assertEquals(1000, ticks);
+            assertEquals(1000, latencies);
+            assertTrue(metrics[0].getLatencyP99Nanos() > 0 || metrics[1].getLatencyP99Nanos() > 0);
+        } finally {
+            for (ObjectName name : names) {
+                server.unregisterMBean(name);
+            }
+        }
+    }
+}
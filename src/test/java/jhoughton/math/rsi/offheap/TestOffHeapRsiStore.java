@@ -0,0 +1,85 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.offheap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.RsiCalculator;
+
+/**
+ * @author jay
+ *
+ */
+class TestOffHeapRsiStore {
+
+    private static final long PERIOD = 10;
+    private static final int LENGTH = 14;
+    private static final int SERIES = 100;
+
+    @Test
+    void testMatchesRsiCalculator() {
+        OffHeapRsiStore store = new OffHeapRsiStore(PERIOD, LENGTH, SERIES);
+        RsiCalculator[] reference = new RsiCalculator[SERIES];
+        for (int s = 0; s < SERIES; s++) {
+            assertEquals(s, store.allocate());
+            reference[s] = new RsiCalculator(PERIOD, LENGTH);
+        }
+
+        List<Long> ends = new ArrayList<>();
+        Random random = new Random(17);
+        for (long t = 0; t < 50_000; t++) {
+            int s = random.nextInt(SERIES);
+            double price = 100 + random.nextInt(20);
+            long end = reference[s].getExpectedEnd();
+            Interval expected = reference[s].trade(price, t);
+            ends.clear();
+            boolean closed = store.trade(s, price, t, (e, rsi, up, down) -> ends.add(e));
+            assertEquals(expected != null, closed);
+            if (expected != null) {
+                assertEquals(List.of(end), ends);
+                assertEquals(expected.getAverageUp(), store.getAverageUp(s));
+                assertEquals(expected.getAverageDown(), store.getAverageDown(s));
+                assertEquals(expected.getRsi(), store.getRsi(s));
+            }
+            assertEquals(reference[s].getExpectedEnd(), store.getExpectedEnd(s));
+        }
+    }
+
+    @Test
+    void testCapacity() {
+        OffHeapRsiStore store = new OffHeapRsiStore(PERIOD, LENGTH, 2);
+        store.allocate();
+        store.allocate();
+        assertThrows(IllegalStateException.class, store::allocate);
+        assertEquals(-1, store.getBegin(1));
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2022 Jay Houghton
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package jhoughton.math.rsi.universe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import jhoughton.math.rsi.AverageCalculator.Averager;
+import jhoughton.math.rsi.Interval;
+import jhoughton.math.rsi.RsiCalculator;
+import jhoughton.math.rsi.average.CutlerAverage;
+
+/**
+ * @author jay
+ *
+ */
+class TestUniverseRsiCalculator {
+
+    private static final int SYMBOLS = 37;
+    private static final int LENGTH = 14;
+    private static final int BARS = 200;
+
+    @Test
+    void testWilderMatchesRsiCalculator() {
+        verify(Averager.Wilder);
+    }
+
+    @Test
+    void testCutlerMatchesRsiCalculator() {
+        verify(Averager.Cutler);
+    }
+
+    @Test
+    void testCloseToClose() {
+        UniverseRsiCalculator universe = new UniverseRsiCalculator(1, 3, Averager.Wilder);
+        RsiCalculator calculator = new RsiCalculator(10, 3);
+        double[] closes = { 5, 6, 4, 7, 7, 9, 8 };
+        assertFalse(universe.close(new double[] { closes[0] }));
+        for (int bar = 1; bar < closes.length; bar++) {
+            universe.close(new double[] { closes[bar] });
+            calculator.trade(closes[bar - 1], bar * 10);
+            calculator.trade(closes[bar], bar * 10 + 5);
+        }
+        Interval last = calculator.trade(0, closes.length * 10);
+        assertEquals(last.getRsi(), universe.getRsi(0));
+    }
+
+    private void verify(Averager averager) {
+        UniverseRsiCalculator universe = new UniverseRsiCalculator(SYMBOLS, LENGTH, averager);
+        RsiCalculator[] calculators = new RsiCalculator[SYMBOLS];
+        for (int s = 0; s < SYMBOLS; s++) {
+            calculators[s] = averager == Averager.Cutler
+                    ? new RsiCalculator(10, LENGTH, new CutlerAverage(LENGTH), new CutlerAverage(LENGTH))
+                    : new RsiCalculator(10, LENGTH);
+        }
+
+        Random random = new Random(3);
+        double[] open = new double[SYMBOLS];
+        double[] close = new double[SYMBOLS];
+        for (int bar = 0; bar < BARS; bar++) {
+            for (int s = 0; s < SYMBOLS; s++) {
+                open[s] = 100 + random.nextInt(10);
+                close[s] = 100 + random.nextInt(10);
+            }
+            boolean ready = universe.close(open, close);
+            assertEquals(bar >= LENGTH, ready);
+
+            for (int s = 0; s < SYMBOLS; s++) {
+                if (bar > 0) {
+                    // this opening tick closes the previous bar
+                    Interval i = calculators[s].trade(open[s], bar * 10);
+                    assertNotNull(i);
+                }
+                calculators[s].trade(open[s], bar * 10);
+                calculators[s].trade(close[s], bar * 10 + 5);
+            }
+        }
+
+        for (int s = 0; s < SYMBOLS; s++) {
+            Interval i = calculators[s].trade(0, BARS * 10);
+            assertTrue(i.hasSmma());
+            assertEquals(i.getAverageUp(), universe.getAverageUp(s), 1e-12);
+            assertEquals(i.getAverageDown(), universe.getAverageDown(s), 1e-12);
+            assertEquals(i.getRsi(), universe.getRsi(s));
+        }
+    }
+
+}